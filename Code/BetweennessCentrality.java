@@ -0,0 +1,234 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Class that implements the Betweenness Centrality algorithm on each cluster that a Community Detection algorithm
+ * identifies. A node with a high betweenness lies on many of the shortest paths between the other nodes, so it is a
+ * broker that bridges parts of the graph. Degree Centrality cannot show this.
+ *
+ * The algorithm is the one of Brandes (2001): one breadth first search from every source node counts the shortest
+ * paths, and walking back from the furthest nodes accumulates the dependency of the source on every node.
+ * The sources are split in chunks that run on the common ForkJoinPool through a parallel stream (like
+ * PageRankCentrality), each chunk has its own BFS arrays and its own accumulator of the scores, and the accumulators
+ * are added together at the end. So threads never write to the same memory. This is called once per community, so
+ * no pool is created per call, and small communities (most of them) run on the calling thread.
+ *
+ * For large components a sample of pivot nodes is used as sources instead of every node, and the scores are scaled
+ * up by (node_count / pivots) to estimate the exact values.
+ */
+public class BetweennessCentrality {
+
+    /**
+     * Communities with more nodes than SAMPLING_THRESHOLD use DEFAULT_PIVOTS sampled sources.
+     */
+    public static final int SAMPLING_THRESHOLD = 5000;
+    public static final int DEFAULT_PIVOTS = 500;
+    /**
+     * Communities with fewer (sources * nodes) than SEQUENTIAL_THRESHOLD are run on the calling thread, splitting
+     * them costs more than the searches.
+     */
+    public static final long SEQUENTIAL_THRESHOLD = 1_000_000;
+
+    private final CompactGraph graph;
+    private final int pivots;
+    private final long seed;
+    private double[] scores;
+
+    /**
+     * Constructor used for each community, the same way DegreeCentrality is called. Large communities are sampled,
+     * and the most central nodes are printed.
+     *
+     * @param community = The nodes of the community.
+     * @param nodeRelations = The network that holds all the nodes and their relations.
+     */
+    public BetweennessCentrality(ArrayList<Node> community, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this(CompactGraph.fromNodeRelations(community, nodeRelations),
+                community.size() > SAMPLING_THRESHOLD ? DEFAULT_PIVOTS : 0, 42);
+        print_centrality_powers();
+    }
+
+    /**
+     * Constructor that computes the scores.
+     *
+     * @param graph = The primitive graph.
+     * @param pivots = Number of sampled source nodes. 0 (or a number not smaller than the nodes) means exact, every
+     *                 node is a source.
+     * @param seed = Seed of the random sampling of the pivots, so a run can be repeated.
+     */
+    public BetweennessCentrality(CompactGraph graph, int pivots, long seed) {
+        if (pivots < 0)
+            throw new IllegalArgumentException("Number of pivots must not be negative but was " + pivots);
+        this.graph = graph;
+        this.pivots = pivots;
+        this.seed = seed;
+
+        calculate_centrality();
+    }
+
+    /**
+     * Code snippet that chooses the sources, runs them in chunks and adds the results of the chunks together.
+     */
+    private void calculate_centrality() {
+        int node_count = graph.nodeCount();
+        scores = new double[node_count];
+        if (node_count < 3)
+            return;
+
+        int[] sources = choose_sources(node_count);
+        int chunks = (long) sources.length * node_count < SEQUENTIAL_THRESHOLD ? 1
+                : Math.min(ForkJoinPool.getCommonPoolParallelism(), sources.length);
+        if (chunks == 1) {
+            new SingleSource(node_count).run_all(sources, 0, 1, scores);
+        } else {
+            // Every chunk takes every (chunks)-th source, so big and small searches are mixed between chunks.
+            double[] total = IntStream.range(0, chunks).parallel()
+                    .mapToObj(first -> {
+                        double[] accumulator = new double[node_count];
+                        new SingleSource(node_count).run_all(sources, first, chunks, accumulator);
+                        return accumulator;
+                    })
+                    .reduce((a, b) -> {
+                        for (int v = 0; v < node_count; v++)
+                            a[v] += b[v];
+                        return a;
+                    })
+                    .get();
+            System.arraycopy(total, 0, scores, 0, node_count);
+        }
+
+        // The graph is undirected so every path is found from both of its ends. Sampling is scaled up.
+        double scale = 0.5 * node_count / sources.length;
+        for (int v = 0; v < node_count; v++)
+            scores[v] *= scale;
+    }
+
+    /**
+     * @return All the nodes when exact, otherwise a random sample of pivots without repetition.
+     */
+    private int[] choose_sources(int node_count) {
+        int[] sources = new int[node_count];
+        for (int v = 0; v < node_count; v++)
+            sources[v] = v;
+        if (pivots == 0 || pivots >= node_count)
+            return sources;
+
+        // Partial Fisher-Yates shuffle, only the first (pivots) positions are needed.
+        Random random = new Random(seed);
+        for (int i = 0; i < pivots; i++) {
+            int j = i + random.nextInt(node_count - i);
+            int swap = sources[i];
+            sources[i] = sources[j];
+            sources[j] = swap;
+        }
+        return Arrays.copyOf(sources, pivots);
+    }
+
+    /**
+     * The arrays of one chunk for the single source searches. They are created once per chunk and only the
+     * visited nodes are reset after each search, so a search costs as much as the part of the graph it reaches.
+     */
+    private class SingleSource {
+        private final int[] distance;
+        private final double[] paths;
+        private final double[] dependency;
+        // Visited nodes in BFS order. Walked backwards it gives the nodes from the furthest to the closest.
+        private final int[] order;
+
+        SingleSource(int node_count) {
+            distance = new int[node_count];
+            paths = new double[node_count];
+            dependency = new double[node_count];
+            order = new int[node_count];
+            Arrays.fill(distance, -1);
+        }
+
+        /**
+         * Method that runs the sources first, first + step, first + 2 * step, ... into the accumulator.
+         */
+        void run_all(int[] sources, int first, int step, double[] accumulator) {
+            for (int i = first; i < sources.length; i += step)
+                run(sources[i], accumulator);
+        }
+
+        void run(int source, double[] accumulator) {
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+
+            // Breadth first search, the order array is also used as the queue.
+            int head = 0;
+            int tail = 0;
+            order[tail++] = source;
+            distance[source] = 0;
+            paths[source] = 1;
+            while (head < tail) {
+                int v = order[head++];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int w = targets[i];
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1)
+                        paths[w] += paths[v];
+                }
+            }
+
+            // Accumulation of the dependencies, the predecessors of w are its neighbours one step closer to source.
+            for (int i = tail - 1; i > 0; i--) {
+                int w = order[i];
+                double share = (1 + dependency[w]) / paths[w];
+                for (int j = offsets[w]; j < offsets[w + 1]; j++) {
+                    int v = targets[j];
+                    if (distance[v] == distance[w] - 1)
+                        dependency[v] += paths[v] * share;
+                }
+                accumulator[w] += dependency[w];
+            }
+
+            // Resetting only what this search touched.
+            for (int i = 0; i < tail; i++) {
+                int v = order[i];
+                distance[v] = -1;
+                paths[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+    }
+
+    /**
+     * Method that prints the 5 nodes with the highest score, in the same format as DegreeCentrality.
+     */
+    private void print_centrality_powers() {
+        TopK best = new TopK(5);
+        for (int v = 0; v < scores.length; v++)
+            best.offer(v, scores[v]);
+        int[] ranked = best.sorted();
+
+        String method = pivots == 0 || pivots >= scores.length ? "exact" : "sampled from " + pivots + " pivots";
+        for (int count = 1; count <= ranked.length; count++) {
+            Node node = graph.node(ranked[count - 1]);
+            Reporter.central_node(count, "Broker", node, "has betweenness", scores[ranked[count - 1]], method);
+        }
+    }
+
+    /**
+     * Getter for the score of each dense node ID of the graph.
+     */
+    public double[] getScores() {
+        return scores;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+}
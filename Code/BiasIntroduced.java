@@ -1,35 +1,24 @@
-import org.neo4j.driver.Record;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class BiasIntroduced  extends  LabelPropagation{
 
-    Set<Node> bias_node;
+    /**
+     * bias_node = Biased nodes that are contained in the graph, see BiasSet.
+     * bias_order = Biased nodes that still have neighbours once the single nodes are removed, they go first in every
+     *              iteration.
+     */
+    BiasSet bias_node;
+    List<Node> bias_order;
 
-    public BiasIntroduced(List<Record> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, Set<Node> bias_node) {
+    public BiasIntroduced(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, BiasSet bias_node) {
         super(all_nodes, nodeRelations);
 
-        this.bias_node =  find_biased_included(bias_node);
-    }
-
-    /**
-     * Function that finds the biased nodes.
-     * Biased nodes are nodes that were detected suspicious from the machine learning algorithms and are also contained in
-     * the candidate nodes of the knowledge graph being constructed.
-     * @param all_biased are all the nodes detected as suspicious by ML procedures.
-     * @return Set of nodes that were detected as suspicious by ML procedures.
-     */
-    private Set<Node> find_biased_included(Set<Node> all_biased) {
-        for (Record node: all_nodes) {
-            Node node_data = node.get("n").asNode();
-            if (!all_biased.contains(node_data))
-                all_biased.remove(node_data);
-        }
-        return all_biased;
+        this.bias_node = bias_node;
     }
 
     /**
@@ -43,13 +32,25 @@ public class BiasIntroduced  extends  LabelPropagation{
          * They also offer information in structure, however the time-complexity increases a lot.
          */
         removeSingleNodes();
+        this.bias_order = new ArrayList<>();
+        for (Node node : this.bias_node.nodes()) {
+            if (this.mapBeingModified.containsKey(node))
+                this.bias_order.add(node);
+        }
+        // A run stopped before goes on from its last checkpoint.
+        long fingerprint = checkpoint == null ? 0 : Checkpoint.fingerprint(this.all_nodes, this.nodeRelations);
+        int counter = resume_checkpoint(fingerprint);
+        init_modularity();
         /**
          * Using DO-WHILE because code will always run at least once and match labels.
          * So we shuffle the keys at least one, we need to shuffle keys in every iteration.
          */
-        int counter = 0;
         boolean max_nei = false;
+        double previous_modularity;
         do {
+            previous_modularity = this.modularity;
+            PipelineMetrics.Iteration iteration = PipelineMetrics.iteration(getClass().getSimpleName(), counter + 1);
+            this.changed_labels = 0;
             // STEP [3] of the pseudocode is to shuffle the keys and take them to random order.
             this.network_keys = shuffle_nodes();
 
@@ -60,18 +61,14 @@ public class BiasIntroduced  extends  LabelPropagation{
             // Save the version before altering
             saveVersion();
 
-            try {
-                // Go thourgh biased nodes first
-                for (Node node : this.bias_node) {
-                    detector(node);
-                }
-
-                // Remove biased nodes.
-                this.network_keys.removeIf(node -> bias_node.contains(node));
-            } catch (Exception e) {
-                //do nothing.
+            // Go thourgh biased nodes first
+            for (Node node : this.bias_order) {
+                detector(node);
             }
 
+            // Remove biased nodes, one bit test per node.
+            this.network_keys.removeIf(node -> bias_node.contains(node));
+
             // Go thourgh the other nodes.
             for (Node node : this.network_keys) {
                 detector(node);
@@ -89,39 +86,19 @@ public class BiasIntroduced  extends  LabelPropagation{
              * It should satisfy for all the nodes!!!
              */
             max_nei = checkNeighboursLabel();
-            System.out.println("Does node have labels of maximum neighbour? : " + max_nei);
+            Reporter.iteration(getClass().getSimpleName(), counter + 1, this.changed_labels, this.modularity);
+            Reporter.message(Reporter.Verbosity.ITERATIONS, "Does node have labels of maximum neighbour? : " + max_nei);
+            iteration.end(this.changed_labels, this.modularity);
 
 
             counter = counter + 1;
+            save_checkpoint(fingerprint, counter);
 
             // Default maxIteration in neo4j manual is 10. [need some working here] && (counter < MAX_ITER)
-        } while (labels_changed && !max_nei && MAX_ITER > counter);
+        } while (labels_changed && !max_nei && MAX_ITER > counter && !modularity_converged(previous_modularity));
+        if (checkpoint != null)
+            checkpoint.delete();
 
         printCommunities();
     }
-
-    /**
-     * Method that removes all the nodes from the network that have no neighbours.
-     * Neighbours = In this case a neighbour is when a node has a relation to another neighbour.
-     * We are also removing the nodes from the biased set.
-     */
-    @Override
-    protected void removeSingleNodes() {
-        for (Record node : this.all_nodes) {
-            Node node_data = node.get("n").asNode();
-            Map<Node, Relationship> node_relations = this.mapBeingModified.get(node_data);
-
-            // If node does not have any neighbours, remove the record from network.
-            if (node_relations.size() < 1) {
-                this.mapBeingModified.remove(node_data);
-                // remove from biased nodes as well.
-                try{
-                    this.bias_node.remove(node_data);
-                }
-                catch (Exception e){
-                    // Do nothing.
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,89 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.types.Node;
+
+import java.util.*;
+
+/**
+ * The biased nodes of the bias variants of Label Propagation (BiasIntroduced and OnlyBias).
+ * Biased nodes are nodes that were detected suspicious from the machine learning algorithms and are also contained in
+ * the candidate nodes of the knowledge graph being constructed.
+ *
+ * The nodes are kept as one bit per dense node ID of the CompactGraph of the network (0 ... n - 1, see
+ * CompactGraph.denseId), so the set takes n bits whatever the neo4j IDs are. The neo4j IDs themselves are positions in
+ * the node store and, once the filtering queries picked a part of the knowledge graph, they are sparse and can be much
+ * larger than n. contains() looks the node up in the index of the graph, contains(int) is one bit test.
+ */
+public class BiasSet {
+
+    private final CompactGraph graph;
+    private final BitSet biased;
+    // Biased nodes in the order of the bias query, without duplicates.
+    private final List<Node> nodes;
+
+    /**
+     * Constructor of the class. Only the flagged nodes that are also in the graph are kept.
+     *
+     * @param flagged = All the nodes detected as suspicious by ML procedures.
+     * @param graph = The CompactGraph of all the nodes involved in the graph.
+     */
+    public BiasSet(Iterable<Node> flagged, CompactGraph graph) {
+        this.graph = graph;
+        this.biased = new BitSet(graph.nodeCount());
+        this.nodes = new ArrayList<>();
+        for (Node node : flagged) {
+            int v = graph.denseId(node);
+            if (v >= 0 && !biased.get(v)) {
+                biased.set(v);
+                nodes.add(node);
+            }
+        }
+    }
+
+    /**
+     * Method that builds the set from the records of the BIAS_NODES query.
+     *
+     * @param flagged = Records of the bias query, the node is in column "n".
+     * @param graph = The CompactGraph of all the nodes involved in the graph.
+     * @return The biased nodes that are in the graph.
+     */
+    public static BiasSet fromRecords(List<Record> flagged, CompactGraph graph) {
+        List<Node> nodes = new ArrayList<>(flagged.size());
+        for (Record rec : flagged)
+            nodes.add(rec.get("n").asNode());
+        return new BiasSet(nodes, graph);
+    }
+
+    /**
+     * @param node = Any node.
+     * @return If the node is biased.
+     */
+    public boolean contains(Node node) {
+        int v = graph.denseId(node);
+        return v >= 0 && biased.get(v);
+    }
+
+    /**
+     * @param v = Dense ID of a node of the graph.
+     * @return If the node is biased.
+     */
+    public boolean contains(int v) {
+        return biased.get(v);
+    }
+
+    /**
+     * @return The biased nodes, in the order of the bias query.
+     */
+    public List<Node> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, IO, NIO and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that saves the state of a long iterative algorithm (Label Propagation, Louvain) to a file, so a run that is
+ * stopped (JVM restart, OutOfMemoryError) can go on from the last saved iteration instead of from the start.
+ *
+ * A checkpoint is saved after an iteration when every_iterations iterations or every_seconds seconds have passed
+ * since the last one. The file is small and binary:
+ *
+ *      int magic, int version, UTF algorithm, long graph fingerprint, int iteration,
+ *      int array count, then for every array: int length, length * int values
+ *
+ * It is written to a temporary file that then replaces the checkpoint, so a crash while saving leaves the previous
+ * checkpoint as it was. The fingerprint identifies the graph (nodes and relations), and a checkpoint of another graph
+ * or of another algorithm is ignored when resuming. The checkpoint is deleted when the algorithm finishes.
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x4C504350;
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final int every_iterations;
+    private final long every_nanos;
+    private long last_save;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param file = The checkpoint file.
+     * @param every_iterations = Save after this many iterations since the last save, 0 to not save by iterations.
+     * @param every_seconds = Save when this many seconds passed since the last save, 0 to not save by time.
+     */
+    public Checkpoint(Path file, int every_iterations, long every_seconds) {
+        this.file = file;
+        this.every_iterations = every_iterations;
+        this.every_nanos = every_seconds * 1_000_000_000L;
+        this.last_save = System.nanoTime();
+    }
+
+    /**
+     * @param iteration = Number of iterations done, starting at 1.
+     * @return If a checkpoint should be saved after this iteration.
+     */
+    public boolean due(int iteration) {
+        if (every_iterations > 0 && iteration % every_iterations == 0)
+            return true;
+        return every_nanos > 0 && System.nanoTime() - last_save >= every_nanos;
+    }
+
+    /**
+     * Method that saves the state of an algorithm, replacing the previous checkpoint.
+     *
+     * @param algorithm = Name of the algorithm, a checkpoint is only resumed by the same algorithm.
+     * @param fingerprint = Fingerprint of the graph (see fingerprint).
+     * @param iteration = Number of iterations done.
+     * @param arrays = State of the algorithm (labels, visiting order, membership).
+     */
+    public void save(String algorithm, long fingerprint, int iteration, IntArray... arrays) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(algorithm);
+            out.writeLong(fingerprint);
+            out.writeInt(iteration);
+            out.writeInt(arrays.length);
+            for (IntArray array : arrays) {
+                out.writeInt(array.size());
+                for (int i = 0; i < array.size(); i++)
+                    out.writeInt(array.get(i));
+            }
+        } catch (IOException e) {
+            // The run goes on without this checkpoint, the previous one is still there.
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint of " + algorithm + " could not be saved: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint of " + algorithm + " could not be saved: " + e.getMessage());
+            return;
+        }
+        last_save = System.nanoTime();
+        Reporter.message(Reporter.Verbosity.ITERATIONS, "[" + algorithm + "] checkpoint saved after iteration " + iteration);
+    }
+
+    /**
+     * Method that reads the checkpoint of an algorithm on a graph.
+     *
+     * @param algorithm = Name of the algorithm.
+     * @param fingerprint = Fingerprint of the graph the algorithm runs on.
+     * @return The saved state, or null when there is no checkpoint, or it is of another algorithm or graph.
+     */
+    public State load(String algorithm, long fingerprint) {
+        if (!Files.exists(file))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (!matches(in, algorithm, fingerprint))
+                return null;
+            int iteration = in.readInt();
+            int[][] arrays = new int[in.readInt()][];
+            for (int a = 0; a < arrays.length; a++) {
+                arrays[a] = new int[in.readInt()];
+                for (int i = 0; i < arrays[a].length; i++)
+                    arrays[a][i] = in.readInt();
+            }
+            Reporter.message(Reporter.Verbosity.SUMMARY, "[" + algorithm + "] resuming from the checkpoint after iteration " + iteration);
+            return new State(iteration, arrays);
+        } catch (IOException e) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " could not be read (" + e.getMessage() + "), starting from the beginning");
+            return null;
+        }
+    }
+
+    /**
+     * Method that reads the checkpoint of an algorithm straight into the arrays of the algorithm, so arrays kept
+     * off-heap (OffHeapGraph.newIntArray) are resumed without a copy of them on the heap.
+     *
+     * @param algorithm = Name of the algorithm.
+     * @param fingerprint = Fingerprint of the graph the algorithm runs on.
+     * @param arrays = The arrays, in the order they were saved and with the same sizes.
+     * @return The number of iterations done, or 0 when nothing was resumed. The arrays may have been partly written
+     * then, and must be initialised by the caller.
+     */
+    public int loadInto(String algorithm, long fingerprint, IntArray... arrays) {
+        if (!Files.exists(file))
+            return 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (!matches(in, algorithm, fingerprint))
+                return 0;
+            int iteration = in.readInt();
+            if (in.readInt() != arrays.length) {
+                Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " does not hold " + arrays.length + " arrays, starting from the beginning");
+                return 0;
+            }
+            for (IntArray array : arrays) {
+                if (in.readInt() != array.size()) {
+                    Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " holds arrays of another size, starting from the beginning");
+                    return 0;
+                }
+                for (int i = 0; i < array.size(); i++)
+                    array.set(i, in.readInt());
+            }
+            Reporter.message(Reporter.Verbosity.SUMMARY, "[" + algorithm + "] resuming from the checkpoint after iteration " + iteration);
+            return iteration;
+        } catch (IOException e) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " could not be read (" + e.getMessage() + "), starting from the beginning");
+            return 0;
+        }
+    }
+
+    /**
+     * Method that reads the header of the checkpoint.
+     * @return If the checkpoint is of this algorithm and graph, the stream is then at the iteration.
+     */
+    private boolean matches(DataInputStream in, String algorithm, long fingerprint) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(algorithm)) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " is not a checkpoint of " + algorithm + ", starting from the beginning");
+            return false;
+        }
+        if (in.readLong() != fingerprint) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " is of another graph, starting from the beginning");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method that deletes the checkpoint, called when the algorithm finished.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Checkpoint " + file + " could not be deleted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Fingerprint of a primitive graph: its size and every entry of its adjacency.
+     */
+    public static long fingerprint(GraphStorage graph) {
+        long hash = 31L * graph.nodeCount() + graph.entryCount();
+        for (int v = 0; v <= graph.nodeCount(); v++)
+            hash = 31 * hash + graph.offset(v);
+        for (long i = 0; i < graph.entryCount(); i++)
+            hash = 31 * hash + graph.target(i);
+        return hash;
+    }
+
+    /**
+     * @return Fingerprint of the network of GraphDB: the ID of every node and the IDs of its neighbours, all sorted, so
+     * it does not depend on the order the query gave the nodes in (the node query has no ORDER BY) or on the order of
+     * the Maps.
+     */
+    public static long fingerprint(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        Node[] nodes = all_nodes.toArray(new Node[0]);
+        Arrays.sort(nodes, Comparator.comparingLong(Node::id));
+
+        long hash = nodes.length;
+        for (Node node : nodes) {
+            hash = 31 * hash + node.id();
+            Map<Node, Relationship> neighbours = nodeRelations.get(node);
+            if (neighbours == null) {
+                hash = 31 * hash - 1;
+                continue;
+            }
+            long[] neighbour_ids = new long[neighbours.size()];
+            int i = 0;
+            for (Node neighbour : neighbours.keySet())
+                neighbour_ids[i++] = neighbour.id();
+            Arrays.sort(neighbour_ids);
+            hash = 31 * hash + neighbour_ids.length;
+            for (long id : neighbour_ids)
+                hash = 31 * hash + id;
+        }
+        return hash;
+    }
+
+    /**
+     * State read from a checkpoint.
+     */
+    public static final class State {
+        private final int iteration;
+        private final int[][] arrays;
+
+        private State(int iteration, int[][] arrays) {
+            this.iteration = iteration;
+            this.arrays = arrays;
+        }
+
+        public int getIteration() {
+            return iteration;
+        }
+
+        /**
+         * @return The arrays in the order they were saved.
+         */
+        public int[][] getArrays() {
+            return arrays;
+        }
+    }
+}
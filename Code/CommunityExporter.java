@@ -0,0 +1,339 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, Collection data structures and NIO packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Class that writes the results of a pipeline to files instead of a second live neo4j server, so they can be
+ * viewed offline.
+ * - communities.graphml can be opened in Gephi (or any GraphML viewer).
+ * - nodes.csv and relationships.csv use the neo4j-admin import header format, so a database can be built with
+ *   neo4j-admin import, which is much faster than MERGE in transactions.
+ * - communities.csv has one row of metrics per community (see CommunityResult) with its most central nodes, only
+ *   when a CommunityResult is set (see setMetrics).
+ *
+ * Files are written through buffered channels, one node at a time. nodes.csv, relationships.csv and the GraphML file
+ * are streamed from nodeRelations, with one Map from node to community built first (an entry per node in a
+ * community). communities.csv needs the CommunityResult, a CompactGraph of the whole network with the community of
+ * every node, and runs a PageRank on the subgraph of every community, so it costs memory in the size of the graph and
+ * time in the size of the communities.
+ * Every node of the network is written, also the ones in no community (the single nodes Label Propagation removes),
+ * with an empty community. Every node gets its community ID and its degree centrality inside the community. Every
+ * relation is written once, from the node with the smaller ID, with the community of both of its nodes, so importing
+ * the files gives back the whole network. setIntraCommunityOnly keeps only the relations inside a community (what
+ * VisualGraph projects).
+ *
+ * GraphDB does not keep the properties of the relations. When a property source is set, relationships.csv gets a
+ * properties column (a JSON object), and the properties are read PROPERTY_BATCH_SIZE relations at a time, only for
+ * the relations that are written.
+ */
+public class CommunityExporter {
+
+    // Size of the buffer in front of each file channel.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Number of relations whose properties are read together.
+    private static final int PROPERTY_BATCH_SIZE = 10000;
+    // Number of central nodes of every community in communities.csv, the same as the printed top 5.
+    private static final int TOP_NODES = 5;
+
+    private final Map<Integer, Set<Node>> resultantSet;
+    private final Map<Node, Map<Node, Relationship>> nodeRelations;
+    // Gives the properties of relations by their ID, null to not export the properties.
+    private Function<Collection<Long>, Map<Long, Map<String, Object>>> relationship_properties;
+    // Communities written to communities.csv, null to not write the file.
+    private CommunityResult metrics;
+    // Only the relations inside a community are written.
+    private boolean intra_community_only;
+
+    /**
+     * Constructor of the class.
+     * @param resultantSet = The communities of a pipeline (getFinal_results()).
+     * @param nodeRelations = The network that holds all the nodes and their relations.
+     */
+    public CommunityExporter(Map<Integer, Set<Node>> resultantSet, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this.resultantSet = resultantSet;
+        this.nodeRelations = nodeRelations;
+    }
+
+    /**
+     * @param relationship_properties = Gives the properties of relations by their ID (for example
+     *                                Connector.relationshipProperties), null to not export the properties.
+     */
+    public void setRelationshipProperties(Function<Collection<Long>, Map<Long, Map<String, Object>>> relationship_properties) {
+        this.relationship_properties = relationship_properties;
+    }
+
+    /**
+     * @param metrics = The same communities in primitive arrays (for example Louvain.getResult, or CommunityResult.of
+     *                over a CompactGraph already built), null to not write communities.csv.
+     */
+    public void setMetrics(CommunityResult metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param intra_community_only = True to write only the relations whose two nodes are in the same community, false
+     *                             (default) to write every relation of the network.
+     */
+    public void setIntraCommunityOnly(boolean intra_community_only) {
+        this.intra_community_only = intra_community_only;
+    }
+
+    /**
+     * @return The community of every node that is in one.
+     */
+    private Map<Node, Integer> community_of() {
+        Map<Node, Integer> community_of = new HashMap<>();
+        for (Map.Entry<Integer, Set<Node>> community : resultantSet.entrySet()) {
+            for (Node node : community.getValue())
+                community_of.put(node, community.getKey());
+        }
+        return community_of;
+    }
+
+    /**
+     * @return If the relation between two nodes of the given communities (null for none) is written.
+     */
+    private boolean written(Integer community_a, Integer community_b) {
+        return !intra_community_only || (community_a != null && community_a.equals(community_b));
+    }
+
+    /**
+     * Method that writes all the files in the directory (created if missing), replacing older exports.
+     * @param directory = Where the files are written.
+     * @throws IOException when a file cannot be written.
+     */
+    public void export(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long[] counts = exportCsv(directory.resolve("nodes.csv"), directory.resolve("relationships.csv"));
+        exportGraphML(directory.resolve("communities.graphml"));
+        if (metrics != null)
+            exportMetrics(metrics, directory.resolve("communities.csv"));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Exported " + counts[0] + " nodes and " + counts[1] + " relations to " + directory.toAbsolutePath() + " in " + seconds + " s");
+    }
+
+    /**
+     * Method that writes the neo4j-admin import files.
+     * @return Number of nodes and number of relations written.
+     */
+    public long[] exportCsv(Path nodes_file, Path relations_file) throws IOException {
+        long nodes_written = 0;
+        long relations_written = 0;
+        Map<Node, Integer> community_of = community_of();
+        try (Writer nodes = open(nodes_file); Writer relations = open(relations_file)) {
+            nodes.write("node_id:ID,:LABEL,community_id:int,community_degree:int\n");
+            relations.write(":START_ID,:END_ID,:TYPE,relationship_id:long,start_community:int,end_community:int"
+                    + (relationship_properties != null ? ",properties" : "") + "\n");
+            List<String> pending_rows = new ArrayList<>();
+            List<Long> pending_ids = new ArrayList<>();
+            for (Map.Entry<Node, Map<Node, Relationship>> node : nodeRelations.entrySet()) {
+                Node nodeA = node.getKey();
+                Integer community = community_of.get(nodeA);
+                int degree = 0;
+                for (Map.Entry<Node, Relationship> connection : node.getValue().entrySet()) {
+                    Node nodeB = connection.getKey();
+                    Integer community_b = community_of.get(nodeB);
+                    if (community != null && community.equals(community_b))
+                        degree++;
+                    if (nodeA.id() <= nodeB.id() && written(community, community_b)) {
+                        Relationship relation = connection.getValue();
+                        String row = nodeA.id() + "," + nodeB.id() + "," + csv(relation.type()) + "," + relation.id()
+                                + "," + cell(community) + "," + cell(community_b);
+                        relations_written++;
+                        if (relationship_properties == null) {
+                            relations.write(row + "\n");
+                        } else {
+                            pending_rows.add(row);
+                            pending_ids.add(relation.id());
+                            if (pending_ids.size() >= PROPERTY_BATCH_SIZE)
+                                write_with_properties(relations, pending_rows, pending_ids);
+                        }
+                    }
+                }
+                nodes.write(nodeA.id() + "," + csv(String.join(";", nodeA.labels())) + "," + cell(community) + "," + degree + "\n");
+                nodes_written++;
+            }
+            write_with_properties(relations, pending_rows, pending_ids);
+        }
+        return new long[]{nodes_written, relations_written};
+    }
+
+    /**
+     * Method that reads the properties of the pending relations in one go, writes the rows with them and empties
+     * the pending lists.
+     */
+    private void write_with_properties(Writer relations, List<String> rows, List<Long> ids) throws IOException {
+        if (ids.isEmpty())
+            return;
+        Map<Long, Map<String, Object>> properties = relationship_properties.apply(ids);
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> relation_properties = properties.get(ids.get(i));
+            relations.write(rows.get(i) + "," + csv(json(relation_properties != null ? relation_properties : Collections.<String, Object>emptyMap())) + "\n");
+        }
+        rows.clear();
+        ids.clear();
+    }
+
+    /**
+     * Method that writes the GraphML file. GraphML allows nodes and edges in any order, so both are written in the
+     * same pass over the communities.
+     */
+    public void exportGraphML(Path file) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+            out.write("  <key id=\"labels\" for=\"node\" attr.name=\"labels\" attr.type=\"string\"/>\n");
+            out.write("  <key id=\"community\" for=\"node\" attr.name=\"community\" attr.type=\"int\"/>\n");
+            out.write("  <key id=\"degree\" for=\"node\" attr.name=\"community_degree\" attr.type=\"int\"/>\n");
+            out.write("  <key id=\"type\" for=\"edge\" attr.name=\"type\" attr.type=\"string\"/>\n");
+            out.write("  <key id=\"intra\" for=\"edge\" attr.name=\"intra_community\" attr.type=\"boolean\"/>\n");
+            out.write("  <graph id=\"communities\" edgedefault=\"undirected\">\n");
+            Map<Node, Integer> community_of = community_of();
+            for (Map.Entry<Node, Map<Node, Relationship>> node : nodeRelations.entrySet()) {
+                Node nodeA = node.getKey();
+                Integer community = community_of.get(nodeA);
+                int degree = 0;
+                for (Map.Entry<Node, Relationship> connection : node.getValue().entrySet()) {
+                    Node nodeB = connection.getKey();
+                    Integer community_b = community_of.get(nodeB);
+                    boolean intra = community != null && community.equals(community_b);
+                    if (intra)
+                        degree++;
+                    if (nodeA.id() <= nodeB.id() && written(community, community_b)) {
+                        out.write("    <edge source=\"n" + nodeA.id() + "\" target=\"n" + nodeB.id() + "\">"
+                                + "<data key=\"type\">" + xml(connection.getValue().type()) + "</data>"
+                                + "<data key=\"intra\">" + intra + "</data></edge>\n");
+                    }
+                }
+                // A node in no community has no community value.
+                out.write("    <node id=\"n" + nodeA.id() + "\">"
+                        + "<data key=\"labels\">" + xml(String.join(";", nodeA.labels())) + "</data>"
+                        + (community != null ? "<data key=\"community\">" + community + "</data>" : "")
+                        + "<data key=\"degree\">" + degree + "</data></node>\n");
+            }
+            out.write("  </graph>\n");
+            out.write("</graphml>\n");
+        }
+    }
+
+    /**
+     * Method that writes one row per community: label, size, relations inside and leaving the community, conductance,
+     * density and the neo4j IDs of its TOP_NODES nodes with the highest degree and PageRank inside the community.
+     * The communities are streamed from the result, so only one of them is built at a time.
+     *
+     * @param result = The communities in primitive arrays.
+     * @param file = The CSV file.
+     * @return Number of communities written.
+     * @throws IOException when the file cannot be written.
+     */
+    public static long exportMetrics(CommunityResult result, Path file) throws IOException {
+        long written = 0;
+        try (Writer out = open(file)) {
+            out.write("community,size,internal_relations,external_relations,conductance,density,top_degree,top_pagerank\n");
+            for (CommunityResult.Community community : result) {
+                out.write(community.getLabel() + "," + community.size() + "," + community.getInternalEdges() + ","
+                        + community.getExternalEdges() + "," + community.getConductance() + "," + community.getDensity() + ","
+                        + node_ids(result, community.getDegreeRanking().top(TOP_NODES)) + ","
+                        + node_ids(result, community.getPageRankRanking().top(TOP_NODES)) + "\n");
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Joins the neo4j IDs of dense node IDs with ';'.
+     */
+    private static String node_ids(CommunityResult result, int[] dense_ids) {
+        StringJoiner ids = new StringJoiner(";");
+        for (int v : dense_ids)
+            ids.add(String.valueOf(result.getGraph().node(v).id()));
+        return ids.toString();
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer on a file channel, truncating the file if it exists.
+     */
+    private static Writer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+    }
+
+    /**
+     * @return The CSV cell of a community, empty for no community.
+     */
+    private static String cell(Integer community) {
+        return community == null ? "" : community.toString();
+    }
+
+    /**
+     * Quotes a CSV value when it contains a separator, a quote or a new line.
+     */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Writes a property value as JSON. Numbers and booleans are written as they are, lists and maps recursively,
+     * everything else (strings, dates, points) as a string.
+     */
+    private static String json(Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof Number || value instanceof Boolean)
+            return value.toString();
+        StringBuilder json = new StringBuilder();
+        if (value instanceof Map) {
+            json.append('{');
+            String separator = "";
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                json.append(separator).append(json(String.valueOf(entry.getKey()))).append(':').append(json(entry.getValue()));
+                separator = ",";
+            }
+            return json.append('}').toString();
+        }
+        if (value instanceof Collection) {
+            json.append('[');
+            String separator = "";
+            for (Object element : (Collection<?>) value) {
+                json.append(separator).append(json(element));
+                separator = ",";
+            }
+            return json.append(']').toString();
+        }
+        json.append('"');
+        for (char c : value.toString().toCharArray()) {
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        return json.append('"').toString();
+    }
+
+    private static String xml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+
+/**
+ * Class that measures how good the communities of any pipeline (WCC, Label Propagation, Louvain) are, so results can
+ * be compared with numbers and not only by looking at the printed communities.
+ *
+ * All the metrics are computed in one pass over the relations, O(E):
+ * - modularity = SUM[c] ( internal(c) / m - (volume(c) / 2m)^2 ), how much denser the communities are than random.
+ * - coverage = Fraction of the relations that are inside a community.
+ * - conductance(c) = external(c) / min(volume(c), 2m - volume(c)), how much of a community leaks outside. Lower is better.
+ * - internal / external relations of every community.
+ * Nodes that are not part of any community (single nodes that were removed) count as a community of their own.
+ */
+public class CommunityQuality {
+
+    private final Map<Integer, Set<Node>> resultantSet;
+    private final Map<Node, Map<Node, Relationship>> nodeRelations;
+
+    /**
+     * internal_edges / external_edges = Relations inside the community / relations leaving the community.
+     * volume = Sum of the degrees of the nodes of the community.
+     */
+    private final Map<Integer, Long> internal_edges;
+    private final Map<Integer, Long> external_edges;
+    private final Map<Integer, Long> volume;
+    private long total_edges;
+    private double modularity;
+    private double coverage;
+
+    /**
+     * Constructor of the class, the metrics are computed straight away.
+     *
+     * @param resultantSet = The communities of a pipeline (getFinal_results()).
+     * @param nodeRelations = The network that holds all the nodes and their relations.
+     */
+    public CommunityQuality(Map<Integer, Set<Node>> resultantSet, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this.resultantSet = resultantSet;
+        this.nodeRelations = nodeRelations;
+        this.internal_edges = new HashMap<>();
+        this.external_edges = new HashMap<>();
+        this.volume = new HashMap<>();
+
+        calculate_quality();
+    }
+
+    /**
+     * Code snippet where all the metrics are computed in a single pass.
+     */
+    private void calculate_quality() {
+        // Community of every node, so each relation is classified with two lookups.
+        Map<Node, Integer> community_of = new HashMap<>();
+        for (Map.Entry<Integer, Set<Node>> community : resultantSet.entrySet()) {
+            for (Node node : community.getValue())
+                community_of.put(node, community.getKey());
+            internal_edges.put(community.getKey(), 0L);
+            external_edges.put(community.getKey(), 0L);
+            volume.put(community.getKey(), 0L);
+        }
+
+        // Every undirected relation is stored twice in nodeRelations, so the counts below are doubled.
+        long twice_internal = 0;
+        long twice_edges = 0;
+        // Sum of the squared volumes of the nodes without a community.
+        double single_volume_squares = 0;
+        for (Map.Entry<Node, Map<Node, Relationship>> entry : nodeRelations.entrySet()) {
+            Integer community = community_of.get(entry.getKey());
+            int degree = entry.getValue().size();
+            twice_edges += degree;
+            if (community == null) {
+                single_volume_squares += (double) degree * degree;
+                continue;
+            }
+            volume.put(community, volume.get(community) + degree);
+            long inside = 0;
+            for (Node neighbour : entry.getValue().keySet()) {
+                if (community.equals(community_of.get(neighbour)))
+                    inside++;
+            }
+            twice_internal += inside;
+            // Each internal relation is seen from both of its nodes, halved after the loop.
+            internal_edges.put(community, internal_edges.get(community) + inside);
+            external_edges.put(community, external_edges.get(community) + degree - inside);
+        }
+        for (Integer community : internal_edges.keySet())
+            internal_edges.put(community, internal_edges.get(community) / 2);
+
+        total_edges = twice_edges / 2;
+        if (total_edges == 0)
+            return;
+
+        double m2 = twice_edges;
+        double expected = single_volume_squares / (m2 * m2);
+        for (long community_volume : volume.values())
+            expected += (community_volume / m2) * (community_volume / m2);
+        coverage = (double) twice_internal / twice_edges;
+        modularity = coverage - expected;
+    }
+
+    /**
+     * @return The conductance of a community, 0 when the community has no relations.
+     */
+    public double conductance(Integer community) {
+        long community_volume = volume.get(community);
+        long rest = 2 * total_edges - community_volume;
+        long smallest = Math.min(community_volume, rest);
+        return smallest == 0 ? 0 : (double) external_edges.get(community) / smallest;
+    }
+
+    /**
+     * Method that prints the metrics of the whole result and of every community.
+     */
+    public void print_quality() {
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Community quality===================================================== ");
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Modularity : " + modularity);
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Coverage : " + coverage);
+        if (!Reporter.enabled(Reporter.Verbosity.COMMUNITIES))
+            return;
+        for (Integer community : resultantSet.keySet()) {
+            Reporter.message(Reporter.Verbosity.COMMUNITIES, "Community " + community + " -> internal relations " + internal_edges.get(community)
+                    + ", external relations " + external_edges.get(community)
+                    + ", conductance " + conductance(community));
+        }
+    }
+
+    public double getModularity() {
+        return modularity;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    public long getTotalEdges() {
+        return total_edges;
+    }
+
+    public long getInternalEdges(Integer community) {
+        return internal_edges.get(community);
+    }
+
+    public long getExternalEdges(Integer community) {
+        return external_edges.get(community);
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, streams and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Result of a community detection algorithm kept in primitive arrays, for the code that uses the results instead of
+ * reading them from the console.
+ *
+ * Every node of the graph has a dense ID (see CompactGraph) and community[v] is the community of node v, or -1 when
+ * the node is in no community (single nodes). The members of every community are kept next to each other in one
+ * int array, so the whole assignment costs a few ints per node instead of a Set of Nodes per community.
+ *
+ * The communities are read one at a time, by iterating or with stream(). A Community is built when it is reached:
+ * its members, relation counts and conductance, and on request its degree and PageRank rankings. Nothing of a
+ * community is kept by the result, so a large result can be written to a file or a database one community at a time.
+ */
+public class CommunityResult implements Iterable<CommunityResult.Community> {
+
+    private final CompactGraph graph;
+    private final int[] community;
+    private final int[] labels;
+    // members[start[c]] ... members[start[c + 1] - 1] are the nodes of community c, in increasing dense ID.
+    private final int[] start;
+    private final int[] members;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param graph = The whole graph the communities were found in.
+     * @param community = Community of every dense node ID, from 0 to (labels.length - 1), or -1 for no community.
+     * @param labels = Label the algorithm gave to every community.
+     */
+    public CommunityResult(CompactGraph graph, int[] community, int[] labels) {
+        this.graph = graph;
+        this.community = community;
+        this.labels = labels;
+
+        // Counting sort of the nodes on their community.
+        int count = labels.length;
+        this.start = new int[count + 1];
+        for (int c : community) {
+            if (c >= 0)
+                start[c + 1]++;
+        }
+        for (int c = 0; c < count; c++)
+            start[c + 1] += start[c];
+        this.members = new int[start[count]];
+        int[] position = Arrays.copyOf(start, count);
+        for (int v = 0; v < community.length; v++) {
+            if (community[v] >= 0)
+                members[position[community[v]]++] = v;
+        }
+    }
+
+    /**
+     * Method that builds the result of an algorithm that returns its communities as a Map, like WConnectedComponents
+     * and LabelPropagation.
+     *
+     * @param results = Communities by label (getFinal_results of the algorithms).
+     * @param nodeRelations = The whole network, with all its relations (see GraphDB).
+     * @return The result over the CompactGraph of the whole network.
+     */
+    public static CommunityResult of(Map<Integer, Set<Node>> results, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        return of(results, CompactGraph.fromNodeRelations(nodeRelations.keySet(), nodeRelations));
+    }
+
+    /**
+     * Method that builds the result over a CompactGraph of the whole network that is already built, so the graph and
+     * its Node index (see CompactGraph.denseId) are shared by every result of the run.
+     *
+     * @param results = Communities by label (getFinal_results of the algorithms).
+     * @param graph = The whole network, built from neo4j nodes.
+     * @return The result over the graph.
+     */
+    public static CommunityResult of(Map<Integer, Set<Node>> results, CompactGraph graph) {
+        int[] community = new int[graph.nodeCount()];
+        Arrays.fill(community, -1);
+        int[] labels = new int[results.size()];
+        int c = 0;
+        for (Map.Entry<Integer, Set<Node>> result : results.entrySet()) {
+            labels[c] = result.getKey();
+            for (Node node : result.getValue()) {
+                int v = graph.denseId(node);
+                if (v >= 0)
+                    community[v] = c;
+            }
+            c++;
+        }
+        return new CommunityResult(graph, community, labels);
+    }
+
+    public int nodeCount() {
+        return community.length;
+    }
+
+    public int communityCount() {
+        return labels.length;
+    }
+
+    /**
+     * @return The community of every dense node ID, -1 for no community. The array itself, it must not be changed.
+     */
+    public int[] getAssignment() {
+        return community;
+    }
+
+    /**
+     * @return The label the algorithm gave to community c.
+     */
+    public int labelOf(int c) {
+        return labels[c];
+    }
+
+    /**
+     * @return The community of a dense node ID, -1 for no community.
+     */
+    public int communityOf(int v) {
+        return community[v];
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param c = Community from 0 to (communityCount() - 1).
+     * @return The community, built now.
+     */
+    public Community community(int c) {
+        return new Community(c);
+    }
+
+    /**
+     * Iterates over the communities in order, building each one when it is reached.
+     */
+    @Override
+    public Iterator<Community> iterator() {
+        return new Iterator<Community>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < labels.length;
+            }
+
+            @Override
+            public Community next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return new Community(next++);
+            }
+        };
+    }
+
+    /**
+     * @return The communities as a sequential Stream, built one at a time.
+     */
+    public Stream<Community> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<Community> spliterator() {
+        return Spliterators.spliterator(iterator(), labels.length,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * One community with its metrics. The relation counts treat every relation once, like CommunityQuality.
+     */
+    public final class Community {
+        private final int index;
+        private final int[] nodes;
+        private final long internal_edges;
+        private final long external_edges;
+        private final long volume;
+        private Ranking degree_ranking;
+        private Ranking pagerank_ranking;
+
+        private Community(int index) {
+            this.index = index;
+            this.nodes = Arrays.copyOfRange(members, start[index], start[index + 1]);
+            long inside = 0;
+            long outside = 0;
+            long degrees = 0;
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            for (int v : nodes) {
+                degrees += offsets[v + 1] - offsets[v];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if (community[targets[i]] == index)
+                        inside++;
+                    else
+                        outside++;
+                }
+            }
+            // Relations inside the community were seen from both of their nodes.
+            this.internal_edges = inside / 2;
+            this.external_edges = outside;
+            this.volume = degrees;
+        }
+
+        public int getLabel() {
+            return labels[index];
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+
+        /**
+         * @return The dense IDs of the members, in increasing order.
+         */
+        public int[] getMembers() {
+            return nodes;
+        }
+
+        /**
+         * @return The neo4j IDs of the members, in the order of getMembers.
+         */
+        public long[] getNodeIds() {
+            long[] ids = new long[nodes.length];
+            for (int i = 0; i < nodes.length; i++)
+                ids[i] = graph.node(nodes[i]).id();
+            return ids;
+        }
+
+        public long getInternalEdges() {
+            return internal_edges;
+        }
+
+        public long getExternalEdges() {
+            return external_edges;
+        }
+
+        /**
+         * @return Relations leaving the community divided by the smaller of the volume of the community and the
+         * volume of the rest of the graph (see CommunityQuality.conductance).
+         */
+        public double getConductance() {
+            long rest = graph.entryCount() - volume;
+            long smallest = Math.min(volume, rest);
+            return smallest == 0 ? 0 : (double) external_edges / smallest;
+        }
+
+        /**
+         * @return Relations inside the community divided by the relations it could have.
+         */
+        public double getDensity() {
+            long possible = (long) nodes.length * (nodes.length - 1) / 2;
+            return possible == 0 ? 0 : (double) internal_edges / possible;
+        }
+
+        /**
+         * @return The members ranked by their number of relations inside the community, like DegreeCentrality.
+         */
+        public Ranking getDegreeRanking() {
+            if (degree_ranking == null) {
+                CompactGraph inside = subgraph();
+                double[] scores = new double[nodes.length];
+                for (int i = 0; i < nodes.length; i++)
+                    scores[i] = inside.degree(i);
+                degree_ranking = new Ranking(nodes, scores);
+            }
+            return degree_ranking;
+        }
+
+        /**
+         * @return The members ranked by their PageRank inside the community, with the default parameters.
+         */
+        public Ranking getPageRankRanking() {
+            if (pagerank_ranking == null) {
+                PageRankCentrality pageRank = new PageRankCentrality(subgraph(), PageRankCentrality.DEFAULT_DAMPING,
+                        PageRankCentrality.DEFAULT_TOLERANCE, PageRankCentrality.DEFAULT_MAX_ITER, false);
+                pagerank_ranking = new Ranking(nodes, pageRank.getScores());
+            }
+            return pagerank_ranking;
+        }
+
+        /**
+         * Method that builds the CompactGraph of the relations inside the community. Node i of the subgraph is
+         * getMembers()[i], found by binary search because the members are sorted.
+         */
+        private CompactGraph subgraph() {
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            int[] sub_offsets = new int[nodes.length + 1];
+            int[] sub_targets = new int[(int) (2 * internal_edges)];
+            Node[] sub_nodes = new Node[nodes.length];
+            int position = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                int v = nodes[i];
+                sub_nodes[i] = graph.node(v);
+                for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                    if (community[targets[j]] == index)
+                        sub_targets[position++] = Arrays.binarySearch(nodes, targets[j]);
+                }
+                sub_offsets[i + 1] = position;
+            }
+            return new CompactGraph(sub_offsets, sub_targets, null, sub_nodes);
+        }
+    }
+
+    /**
+     * Members of a community ordered by a score, highest first. Ties keep the order of the dense IDs.
+     */
+    public static final class Ranking {
+        private final int[] nodes;
+        private final double[] scores;
+
+        /**
+         * @param members = Dense IDs of the members.
+         * @param member_scores = Score of every member, in the order of members.
+         */
+        private Ranking(int[] members, double[] member_scores) {
+            Integer[] order = new Integer[members.length];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(member_scores[b], member_scores[a]));
+            this.nodes = new int[members.length];
+            this.scores = new double[members.length];
+            for (int i = 0; i < order.length; i++) {
+                nodes[i] = members[order[i]];
+                scores[i] = member_scores[order[i]];
+            }
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+
+        /**
+         * @return Dense ID of the node at a rank, 0 is the highest score.
+         */
+        public int node(int rank) {
+            return nodes[rank];
+        }
+
+        public double score(int rank) {
+            return scores[rank];
+        }
+
+        /**
+         * @param k = Number of nodes wanted.
+         * @return The dense IDs of the k highest ranked nodes, highest first.
+         */
+        public int[] top(int k) {
+            return Arrays.copyOf(nodes, Math.min(k, nodes.length));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+
+/**
+ * Class that holds a primitive (array based) copy of the undirected graph, so the heavier centrality algorithms can
+ * run over int arrays instead of walking the Map of Nodes on every iteration.
+ *
+ * Every node gets a dense ID between 0 and (node_count - 1). The neighbours of node v are stored in
+ * targets[offsets[v]] ... targets[offsets[v + 1] - 1]. Like in GraphDB every relation is stored in both directions,
+ * because the graph is treated as undirected.
+ *
+ * It implements GraphStorage, the read API shared with OffHeapGraph, for the algorithms that can also run off-heap.
+ */
+public class CompactGraph implements GraphStorage {
+
+    /**
+     * node_count = Number of nodes in the graph.
+     * offsets = Start position of the neighbours of each node in the targets array. Has node_count + 1 entries.
+     * targets = Dense IDs of the neighbours of every node, one after the other.
+     * weights = Weight of every entry in targets. Null when the graph is unweighted (every relation has weight 1).
+     * nodes = The neo4j Node of every dense ID. Null when the graph was generated and not read from neo4j.
+     */
+    private final int node_count;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final Node[] nodes;
+    // Dense ID of every neo4j Node, built by the first call of denseId.
+    private Map<Node, Integer> dense_ids;
+
+    /**
+     * Constructor of the class, arrays are used as they are and are not copied.
+     */
+    public CompactGraph(int[] offsets, int[] targets, double[] weights, Node[] nodes) {
+        this.node_count = offsets.length - 1;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Method that builds the primitive graph for a group of nodes, for example a community. Only the relations that
+     * have both nodes inside the group are kept.
+     *
+     * @param members = The nodes that will be part of the graph.
+     * @param nodeRelations = The network that holds all the nodes and their relations (see GraphDB).
+     * @return The primitive graph of the group.
+     */
+    public static CompactGraph fromNodeRelations(Collection<Node> members, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        // Giving a dense ID to every member.
+        Node[] nodes = new Node[members.size()];
+        Map<Node, Integer> dense_ids = new HashMap<>();
+        int id = 0;
+        for (Node node : members) {
+            // A List can hold the same node twice, keep only the first one.
+            if (!dense_ids.containsKey(node)) {
+                nodes[id] = node;
+                dense_ids.put(node, id);
+                id++;
+            }
+        }
+        if (id < nodes.length)
+            nodes = Arrays.copyOf(nodes, id);
+
+        // First pass counts the neighbours inside the group, so we know the size of the arrays.
+        int[] offsets = new int[nodes.length + 1];
+        for (int v = 0; v < nodes.length; v++) {
+            int degree = 0;
+            Map<Node, Relationship> neighbours = nodeRelations.get(nodes[v]);
+            if (neighbours != null) {
+                for (Node neighbour : neighbours.keySet()) {
+                    if (dense_ids.containsKey(neighbour))
+                        degree++;
+                }
+            }
+            offsets[v + 1] = offsets[v] + degree;
+        }
+
+        // Second pass fills in the neighbours.
+        int[] targets = new int[offsets[nodes.length]];
+        for (int v = 0; v < nodes.length; v++) {
+            int position = offsets[v];
+            Map<Node, Relationship> neighbours = nodeRelations.get(nodes[v]);
+            if (neighbours != null) {
+                for (Node neighbour : neighbours.keySet()) {
+                    Integer target = dense_ids.get(neighbour);
+                    if (target != null)
+                        targets[position++] = target;
+                }
+            }
+        }
+        return new CompactGraph(offsets, targets, null, nodes);
+    }
+
+    /**
+     * Method that builds the primitive graph from a list of edges. Each edge is added in both directions. Like the Map
+     * of GraphDB, two nodes are neighbours once whatever the number of edges between them, and a self-loop is one
+     * entry in the neighbours of its node, so the degrees are the same as on the records.
+     *
+     * @param node_count = Number of nodes, the edges use IDs from 0 to (node_count - 1).
+     * @param sources = First node of every edge.
+     * @param destinations = Second node of every edge.
+     * @param edge_count = Number of edges to read from the two arrays.
+     * @return The primitive undirected graph.
+     */
+    public static CompactGraph fromEdges(int node_count, int[] sources, int[] destinations, int edge_count) {
+        return fromEdges(node_count, sources, destinations, edge_count, null);
+    }
+
+    /**
+     * Method that builds the primitive graph from the records of a relation query, without the Maps of GraphDB.
+     * Like GraphDB, the nodes without any relation are in the graph and a pair of nodes is connected once.
+     *
+     * @param involved_nodes = All the nodes involved in the graph, they get the first dense IDs in this order.
+     * @param relations = One record per relation, with keys "n", "r" and "m" (NodeA-Relation-NodeB).
+     * @return The primitive undirected graph with the Node of every dense ID.
+     */
+    public static CompactGraph fromRelations(List<Node> involved_nodes, List<Record> relations) {
+        List<Node> nodes = new ArrayList<>(involved_nodes.size());
+        Map<Node, Integer> dense_ids = new HashMap<>();
+        for (Node node : involved_nodes) {
+            // A List can hold the same node twice, keep only the first one.
+            if (dense_ids.putIfAbsent(node, nodes.size()) == null)
+                nodes.add(node);
+        }
+
+        int[] sources = new int[relations.size()];
+        int[] destinations = new int[relations.size()];
+        for (int e = 0; e < relations.size(); e++) {
+            Record relation = relations.get(e);
+            for (int end = 0; end < 2; end++) {
+                Node node = relation.get(end == 0 ? "n" : "m").asNode();
+                Integer id = dense_ids.get(node);
+                if (id == null) {
+                    // A relation of a node the node query did not return, GraphDB adds it too.
+                    id = nodes.size();
+                    nodes.add(node);
+                    dense_ids.put(node, id);
+                }
+                if (end == 0)
+                    sources[e] = id;
+                else
+                    destinations[e] = id;
+            }
+        }
+        CompactGraph graph = fromEdges(nodes.size(), sources, destinations, relations.size(), nodes.toArray(new Node[0]));
+        graph.dense_ids = dense_ids;
+        return graph;
+    }
+
+    private static CompactGraph fromEdges(int node_count, int[] sources, int[] destinations, int edge_count, Node[] nodes) {
+        int[] offsets = new int[node_count + 1];
+        for (int e = 0; e < edge_count; e++) {
+            offsets[sources[e] + 1]++;
+            offsets[destinations[e] + 1]++;
+        }
+        for (int v = 0; v < node_count; v++)
+            offsets[v + 1] += offsets[v];
+
+        int[] position = Arrays.copyOf(offsets, node_count);
+        int[] targets = new int[offsets[node_count]];
+        for (int e = 0; e < edge_count; e++) {
+            targets[position[sources[e]]++] = destinations[e];
+            targets[position[destinations[e]]++] = sources[e];
+        }
+
+        // Sorting every neighbour list and keeping each neighbour once (parallel edges, and the second entry of a
+        // self-loop), moving the lists to the front of the array.
+        int kept = 0;
+        int start = 0;
+        for (int v = 0; v < node_count; v++) {
+            int end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = kept;
+            for (int i = start; i < end; i++) {
+                if (i == start || targets[i] != targets[kept - 1])
+                    targets[kept++] = targets[i];
+            }
+            start = end;
+        }
+        offsets[node_count] = kept;
+        if (kept < targets.length)
+            targets = Arrays.copyOf(targets, kept);
+        return new CompactGraph(offsets, targets, null, nodes);
+    }
+
+    @Override
+    public int nodeCount() {
+        return node_count;
+    }
+
+    /**
+     * @return Number of entries in the adjacency, every undirected relation counts twice.
+     */
+    @Override
+    public long entryCount() {
+        return targets.length;
+    }
+
+    @Override
+    public long offset(int v) {
+        return offsets[v];
+    }
+
+    @Override
+    public int target(long position) {
+        return targets[(int) position];
+    }
+
+    @Override
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Sum of the weights of all the relations of a node. Equal to the degree when the graph is unweighted.
+     */
+    public double strength(int v) {
+        if (weights == null)
+            return degree(v);
+        double strength = 0;
+        for (int i = offsets[v]; i < offsets[v + 1]; i++)
+            strength += weights[i];
+        return strength;
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getTargets() {
+        return targets;
+    }
+
+    public double[] getWeights() {
+        return weights;
+    }
+
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    /**
+     * @return The neo4j Node of the dense ID, or null when the graph was not built from neo4j nodes.
+     */
+    public Node node(int v) {
+        return nodes == null ? null : nodes[v];
+    }
+
+    /**
+     * @return The dense ID of a neo4j Node, -1 when it is not in the graph. The index is built on the first call, so a
+     * graph shared by several callers resolves nodes without scanning all of them every time.
+     */
+    public int denseId(Node node) {
+        if (nodes == null)
+            return -1;
+        if (dense_ids == null) {
+            Map<Node, Integer> index = new HashMap<>(nodes.length * 2);
+            for (int v = 0; v < node_count; v++)
+                index.put(nodes[v], v);
+            dense_ids = index;
+        }
+        Integer v = dense_ids.get(node);
+        return v == null ? -1 : v;
+    }
+}
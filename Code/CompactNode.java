@@ -0,0 +1,103 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Node of the local graph sources (see EdgeArrayGraphSource), built on the public Node interface of the driver so
+ * the sources do not depend on the internal classes of a driver version. It only has an ID and labels, the label
+ * List is shared by all the nodes of a source. Like CompactRelationship it has no properties.
+ */
+public final class CompactNode implements Node {
+
+    private final long id;
+    private final List<String> labels;
+
+    public CompactNode(long id, List<String> labels) {
+        this.id = id;
+        this.labels = labels;
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    @Override
+    public Iterable<String> labels() {
+        return labels;
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return labels.contains(label);
+    }
+
+    @Override
+    public Iterable<String> keys() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return false;
+    }
+
+    @Override
+    public Value get(String key) {
+        return Values.NULL;
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+
+    @Override
+    public Iterable<Value> values() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> Iterable<T> values(Function<Value, T> mapFunction) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public <T> Map<String, T> asMap(Function<Value, T> mapFunction) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Same as the driver, two nodes are equal when they have the same ID.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Node && ((Node) other).id() == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "node<" + id + ">";
+    }
+}
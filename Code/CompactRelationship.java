@@ -0,0 +1,137 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Relationship kept in the adjacency Maps of GraphDB. The driver's Relationship keeps its type as a String and all of
+ * its properties in a Map, for every relation, while the algorithms only need the type and the IDs. This one keeps
+ * the relationship ID and both node IDs as longs and the type as a code of RelationshipTypes, about 40 bytes per
+ * relation instead of the property Map. It is still one object per relation, next to the driver Nodes, because the
+ * algorithms read the graph as Map<Node, Map<Node, Relationship>>. The graph sources that keep the relations in
+ * primitive arrays (a short type code per relation, see EdgeArrayGraphSource) only create these objects when the
+ * records are asked for.
+ *
+ * It has no properties: keys() is empty and get() returns NULL. The properties of the relations that are exported
+ * are read from the server by ID when they are needed (Connector.relationshipProperties).
+ */
+public final class CompactRelationship implements Relationship {
+
+    private final long id;
+    private final long start;
+    private final long end;
+    private final short type;
+
+    public CompactRelationship(long id, long start, long end, short type) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+    }
+
+    /**
+     * @return A CompactRelationship with the same ID, nodes and type as the relationship (itself if it already is one).
+     */
+    public static CompactRelationship of(Relationship relationship) {
+        if (relationship instanceof CompactRelationship)
+            return (CompactRelationship) relationship;
+        return new CompactRelationship(relationship.id(), relationship.startNodeId(), relationship.endNodeId(),
+                RelationshipTypes.code(relationship.type()));
+    }
+
+    public short typeCode() {
+        return type;
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    @Override
+    public long startNodeId() {
+        return start;
+    }
+
+    @Override
+    public long endNodeId() {
+        return end;
+    }
+
+    @Override
+    public String type() {
+        return RelationshipTypes.name(type);
+    }
+
+    @Override
+    public boolean hasType(String relationshipType) {
+        return type().equals(relationshipType);
+    }
+
+    @Override
+    public Iterable<String> keys() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return false;
+    }
+
+    @Override
+    public Value get(String key) {
+        return Values.NULL;
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+
+    @Override
+    public Iterable<Value> values() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> Iterable<T> values(Function<Value, T> mapFunction) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public <T> Map<String, T> asMap(Function<Value, T> mapFunction) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Same as the driver, two relationships are equal when they have the same ID.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Relationship && ((Relationship) other).id() == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "relationship<" + id + ">";
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, concurrency and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Label Propagation run independently on every weakly connected component.
+ *
+ * A label can never move from one component to another, so treating the whole network as one problem only makes
+ * every component wait for the slowest one. Here the network is first split with WConnectedComponents.components,
+ * then every component is one task on a work-stealing pool:
+ * - components are submitted from the largest to the smallest, so the long tasks start first and the small ones fill
+ *   the gaps at the end;
+ * - components of 2 or 3 nodes are solved in closed form: they are a relation, a path or a triangle, and propagation
+ *   always ends with a single label for them. Which label depends on the random order (for a relation, the first
+ *   node visited takes the label of the second), so it is one of the starting labels of the component. The closed
+ *   form gives them the smallest one without iterating: the communities are the same as propagation, only their
+ *   label can differ, and it does not depend on the seed;
+ * - every other component iterates on its own random order until every node has a label that the maximum number of
+ *   its neighbours have (STEP [5] of the pseudocode), or MAX_COMPONENT_ITER.
+ *
+ * The components have no modularity of their own to follow while they run, so the modularity tolerance of
+ * LabelPropagation is not used (see setModularity_tolerance). The modularity of the result is computed at the end.
+ *
+ * The components are disjoint, so the tasks write to different positions of one label array without locking.
+ * The results go back into node_labels, so the communities, printing and modularity are the same as LabelPropagation.
+ */
+public class ComponentLabelPropagation extends LabelPropagation {
+
+    // Maximum iterations of one component, most stop much earlier because they converge.
+    public static final int MAX_COMPONENT_ITER = 20;
+    // Components up to this size are solved in closed form.
+    private static final int CLOSED_FORM_SIZE = 3;
+
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param all_nodes     = All the nodes involved in the graph.
+     * @param nodeRelations = All the connected nodes involved in the graph, together with their relationships.
+     * @param threads       = Parallelism of the work-stealing pool.
+     * @param seed          = Seed of the random orders, component c uses seed + c.
+     */
+    public ComponentLabelPropagation(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, int threads, long seed) {
+        super(all_nodes, nodeRelations);
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public ComponentLabelPropagation(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this(all_nodes, nodeRelations, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * Checkpoints are not supported here, the components run in parallel from their initial labels, so the checkpoint is ignored with a warning.
+     */
+    @Override
+    public void setCheckpoint(Checkpoint checkpoint) {
+        if (checkpoint != null)
+            Reporter.message(Reporter.Verbosity.SUMMARY, "ComponentLabelPropagation does not save checkpoints, the checkpoint is ignored");
+    }
+
+    /**
+     * The modularity tolerance is not used: every component stops when it converged or after MAX_COMPONENT_ITER, so a
+     * tolerance that is on (not negative) is ignored with a warning.
+     */
+    @Override
+    public void setModularity_tolerance(double modularity_tolerance) {
+        if (modularity_tolerance >= 0)
+            Reporter.message(Reporter.Verbosity.SUMMARY, "ComponentLabelPropagation does not stop on the modularity, the tolerance is ignored");
+    }
+
+    @Override
+    protected void find_labelPropagation_communities() {
+        // Nodes with no neighbours are removed, same as LabelPropagation.
+        removeSingleNodes();
+
+        CompactGraph graph = CompactGraph.fromNodeRelations(this.mapBeingModified.keySet(), this.mapBeingModified);
+        int n = graph.nodeCount();
+        IntArray component = WConnectedComponents.components(graph);
+
+        // Members of every component next to each other (counting sort on the component).
+        int component_count = 0;
+        for (int v = 0; v < n; v++)
+            component_count = Math.max(component_count, component.get(v) + 1);
+        int[] start = new int[component_count + 1];
+        for (int v = 0; v < n; v++)
+            start[component.get(v) + 1]++;
+        for (int c = 0; c < component_count; c++)
+            start[c + 1] += start[c];
+        int[] members = new int[n];
+        int[] position = Arrays.copyOf(start, component_count);
+        for (int v = 0; v < n; v++)
+            members[position[component.get(v)]++] = v;
+
+        // Starting labels are the unique labels given by initLabels.
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++)
+            labels[v] = this.node_labels.get(Integer.parseInt(String.valueOf(graph.node(v).id())));
+
+        // Largest components first.
+        Integer[] order = new Integer[component_count];
+        for (int c = 0; c < component_count; c++)
+            order[c] = c;
+        Arrays.sort(order, (a, b) -> Integer.compare(start[b + 1] - start[b], start[a + 1] - start[a]));
+
+        int[] iterations = new int[component_count];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int c : order) {
+                int from = start[c];
+                int to = start[c + 1];
+                if (to - from <= CLOSED_FORM_SIZE)
+                    closed_form(members, from, to, labels);
+                else
+                    tasks.add(pool.submit(() -> {
+                        iterations[c] = propagate_component(graph, members, from, to, labels, new Random(seed + c));
+                    }));
+            }
+            for (ForkJoinTask<?> task : tasks)
+                task.join();
+        } finally {
+            pool.shutdown();
+        }
+
+        int closed_form = 0;
+        int max_iterations = 0;
+        for (int c = 0; c < component_count; c++) {
+            if (start[c + 1] - start[c] <= CLOSED_FORM_SIZE)
+                closed_form++;
+            max_iterations = Math.max(max_iterations, iterations[c]);
+        }
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Label Propagation ran on " + component_count + " components (" + closed_form
+                + " in closed form), the slowest took " + max_iterations + " iterations");
+
+        // Back to node_labels, so the rest of the class works on the result as usual.
+        for (int v = 0; v < n; v++)
+            this.node_labels.put(Integer.parseInt(String.valueOf(graph.node(v).id())), labels[v]);
+        init_modularity();
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Modularity of the labels : " + this.modularity);
+
+        printCommunities();
+    }
+
+    /**
+     * Every node of a component of 2 or 3 nodes takes the smallest label of the component, one of the labels
+     * propagation could end with on it.
+     */
+    private static void closed_form(int[] members, int from, int to, int[] labels) {
+        int label = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++)
+            label = Math.min(label, labels[members[i]]);
+        for (int i = from; i < to; i++)
+            labels[members[i]] = label;
+    }
+
+    /**
+     * Label Propagation on one component, members[from] ... members[to - 1].
+     * @return Number of iterations until the component converged.
+     */
+    private static int propagate_component(CompactGraph graph, int[] members, int from, int to, int[] labels, Random random) {
+        int size = to - from;
+        int[] order = Arrays.copyOfRange(members, from, to);
+        int max_degree = 0;
+        for (int v : order)
+            max_degree = Math.max(max_degree, graph.degree(v));
+        int[] neighbour_labels = new int[max_degree];
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+
+        int iteration = 0;
+        boolean converged = false;
+        while (!converged && iteration < MAX_COMPONENT_ITER) {
+            iteration++;
+            converged = true;
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (int v : order) {
+                int degree = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++)
+                    neighbour_labels[degree++] = labels[targets[i]];
+                int new_label = most_frequent_label(neighbour_labels, degree, labels[v], random);
+                if (!is_most_frequent(neighbour_labels, degree, labels[v]))
+                    converged = false;
+                labels[v] = new_label;
+            }
+        }
+        return iteration;
+    }
+}
@@ -5,11 +5,24 @@
  */
 
 
-import org.neo4j.driver.*;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
 /**
@@ -27,12 +40,91 @@ public class Connector implements AutoCloseable {
     private final Driver driver;
     // Name of the database i will be working with, because their are a lot of them in the server.
     private final String researchDB = "research";
+    // Background clearing of the projection database, null when it is cleared when the results are ready.
+    private CompletableFuture<Void> projection_clearing;
 
     private static WConnectedComponents wccResult;
     private static LabelPropagation labelResults;
     private static BiasIntroduced biasResults;
     private static OnlyBias onlybiasResults;
+    private static Louvain louvainResults;
     private static Map<Node, Map<Node, Relationship>> nodeRelations;
+    // CompactGraph of nodeRelations, built once per run by compact_graph().
+    private static CompactGraph compact_graph;
+
+    // Label Propagation stops when the modularity grows less than this in an iteration. Negative turns it off.
+    private static final double LPA_MODULARITY_TOLERANCE = -1;
+    // Run Label Propagation (option 2) separately on every weakly connected component, in parallel.
+    private static final boolean LPA_BY_COMPONENT = false;
+    // Number of seeded Label Propagation runs combined into a consensus (option 2), 1 for a single run. A relation is
+    // kept in the consensus when its nodes are together in at least LPA_CONSENSUS_THRESHOLD of the runs.
+    private static final int LPA_ENSEMBLE_RUNS = 1;
+    private static final double LPA_CONSENSUS_THRESHOLD = 0.75;
+
+    // How VisualGraph writes the results back, and how many rows go in one UNWIND statement in the batched modes.
+    // RECREATE, the default, creates every edge with its own statement as before. -Dneo4jalgo.writeback=batched or
+    // parallel writes them in UNWIND batches, in_place writes on the source database.
+    private static final VisualGraph.WritebackMode WRITEBACK_MODE = VisualGraph.WritebackMode.valueOf(
+            System.getProperty("neo4jalgo.writeback", "recreate").toUpperCase(Locale.ROOT));
+    private static final int WRITEBACK_BATCH_SIZE = 10000;
+    // Number of sessions writing at the same time in the parallel mode, on platform and on virtual threads.
+    private static final int WRITEBACK_SESSIONS = 4;
+    private static final int VIRTUAL_WRITEBACK_SESSIONS = 32;
+    // Threads of the blocking neo4j calls (extraction queries, property reads, clearing and writeback). PLATFORM runs
+    // them on a few platform threads, -Dneo4jalgo.io=virtual runs every call on a virtual thread on Java 21 and later
+    // (the modern-jdk profile). The algorithms always run on platform threads sized to the processors.
+    private static final IoThreads.Mode IO_MODE =
+            IoThreads.Mode.valueOf(System.getProperty("neo4jalgo.io", "platform").toUpperCase(Locale.ROOT));
+    // The projection database is cleared just before the results are written, as before. With
+    // -Dneo4jalgo.clear=background it is cleared on a background thread while the graph is being analysed, so it is
+    // emptied even when the pipeline fails later.
+    private static final boolean CLEAR_IN_BACKGROUND =
+            System.getProperty("neo4jalgo.clear", "before-writeback").equalsIgnoreCase("background");
+    // Directory where the results are also exported as GraphML and neo4j-admin import CSV files, null to not export.
+    private static final String EXPORT_DIRECTORY = null;
+    // Read the properties of the exported relations from the server (GraphDB does not keep them), in chunks of this size.
+    private static final boolean EXPORT_RELATIONSHIP_PROPERTIES = true;
+    // Also export communities.csv, the metrics and central nodes of every community. It needs the CompactGraph of the
+    // whole network and a PageRank per community (see CommunityExporter).
+    private static final boolean EXPORT_COMMUNITY_METRICS = true;
+    private static final int PROPERTY_BATCH_SIZE = 10000;
+    // Number of property chunks read at the same time, on platform and on virtual threads.
+    private static final int PROPERTY_READS = 4;
+    private static final int VIRTUAL_PROPERTY_READS = 64;
+    // How much of the results is written (NODES, the default, also lists every node of every community as before; lower
+    // it to COMMUNITIES on large graphs), and the file they are written to, null for the console.
+    private static final Reporter.Verbosity REPORT_VERBOSITY = Reporter.Verbosity.NODES;
+    private static final String REPORT_FILE = null;
+    // Directory where Label Propagation (single run, options 2 to 4) and Louvain save their progress, so a stopped run
+    // goes on from there when it is started again on the same graph. Null to not save it. A checkpoint is saved every
+    // CHECKPOINT_EVERY_ITERATIONS iterations (levels for Louvain) or CHECKPOINT_EVERY_SECONDS seconds.
+    private static final String CHECKPOINT_DIRECTORY = null;
+    private static final int CHECKPOINT_EVERY_ITERATIONS = 1;
+    private static final long CHECKPOINT_EVERY_SECONDS = 300;
+    // Degree-only report: the counts, degree distribution and DEGREE_TOP_K nodes with the highest degree of the
+    // filtering queries are computed by the server with Cypher aggregation (see PushDownAnalysis), without extracting
+    // the graph. False runs the community detection pipelines, which need the whole topology.
+    private static final boolean DEGREE_REPORT_ONLY = false;
+    private static final int DEGREE_TOP_K = 10;
+    // Runs WCC ("components") or Label Propagation ("propagation") on the graph of main_query_any kept off-heap
+    // (OffHeapGraph), for a knowledge graph that does not fit on the heap. The relations are streamed from the server
+    // as IDs and types only (see Neo4jEdgeGraphSource) and no GraphDB is built. Null runs the pipelines of the menu.
+    private static final String OFF_HEAP_ALGORITHM = null;
+    // File the OffHeapGraph is mapped to, null to keep it in direct memory (see -XX:MaxDirectMemorySize).
+    private static final String OFF_HEAP_FILE = null;
+    private static final int OFF_HEAP_LPA_ITERATIONS = 20;
+    private static final long OFF_HEAP_SEED = 42;
+    // Rank the whole graph with PageRank before the menu. It runs whatever option is chosen, so it is off unless the
+    // most popular nodes of the full graph are wanted.
+    private static final boolean FULL_GRAPH_PAGERANK = false;
+    // Number of most suspicious nodes (Personalized PageRank from the biased nodes) printed per community in options
+    // 3 and 4.
+    private static final int SUSPICION_TOP_K = 5;
+
+    // Properties of relations by their ID, the planner seeks them by ID without scanning.
+    private static final String RELATIONSHIP_PROPERTIES = "" +
+            "MATCH ()-[r]->() WHERE id(r) IN $ids " +
+            "RETURN id(r) AS id, properties(r) AS props";
 
 
     // String that gives instrunctions to the user on process.
@@ -42,7 +134,8 @@ public class Connector implements AutoCloseable {
             "[2] Pipeline -> Label Propagation + Degree Centrality. \n" +
             "[3] Pipeline -> Label Propagation + Degree Centrality considering biased nodes first in changing labels. \n" +
             "[4] Pipeline -> Label Propagation + Degree Centrality with ONLY the biased nodes from ML \n" +
-            "Type the appropriate number from the options [1, 2, 3, 4]. \n" +
+            "[5] Pipeline -> Louvain (modularity) + Degree Centrality. \n" +
+            "Type the appropriate number from the options [1, 2, 3, 4, 5]. \n" +
             "Option 3 & 4 work for query that includes nodes of type [Datapoint or Ratio]";
     /**
      * The following are neo4j cypher queries being applied through neo4j connection.
@@ -136,6 +229,213 @@ public class Connector implements AutoCloseable {
         }
     }
 
+    /**
+     * Method that executes a query and gives its records one at a time, as the driver receives them, so a result
+     * larger than the heap can be read. It runs in an auto-commit transaction, which is not retried, so the consumer
+     * never sees a record twice.
+     *
+     * @param query = The query we want to apply.
+     * @param consumer = Called with every record, in order.
+     */
+    public void streamQuery(String query, Consumer<Record> consumer) {
+        try (Session session = driver.session(SessionConfig.forDatabase(researchDB))) {
+            Result result = session.run(query);
+            while (result.hasNext())
+                consumer.accept(result.next());
+        }
+    }
+
+    /**
+     * Method that executes a query with parameters and returns its records.
+     *
+     * @param query = The query we want to apply.
+     * @param parameters = The parameters of the query (see Values.parameters).
+     * @return The records of the query.
+     */
+    public List<Record> executeQuery(String query, Value parameters) {
+        try (Session session = driver.session(SessionConfig.forDatabase(researchDB))) {
+            return session.readTransaction(tx -> tx.run(query, parameters).list());
+        }
+    }
+
+    /**
+     * Method that reads the properties of relations by ID, PROPERTY_BATCH_SIZE IDs per query. GraphDB only keeps the ID,
+     * nodes and type of every relation, so this is used for the few relations whose properties are really needed.
+     * The chunks are read at the same time, every one in its own session (see IoThreads).
+     *
+     * @param ids = IDs of the relations.
+     * @return The properties of every relation found, by relation ID.
+     */
+    public Map<Long, Map<String, Object>> relationshipProperties(Collection<Long> ids) {
+        Map<Long, Map<String, Object>> properties = new HashMap<>();
+        List<Long> all_ids = new ArrayList<>(ids);
+        int chunks = (all_ids.size() + PROPERTY_BATCH_SIZE - 1) / PROPERTY_BATCH_SIZE;
+        List<List<Record>> results = IoThreads.runAll("neo4j-properties", chunks,
+                IoThreads.concurrency(PROPERTY_READS, VIRTUAL_PROPERTY_READS), c -> {
+                    List<Long> chunk = all_ids.subList(c * PROPERTY_BATCH_SIZE, Math.min((c + 1) * PROPERTY_BATCH_SIZE, all_ids.size()));
+                    try (Session session = driver.session(SessionConfig.forDatabase(researchDB))) {
+                        return session.readTransaction(
+                                tx -> tx.run(RELATIONSHIP_PROPERTIES, Values.parameters("ids", chunk)).list());
+                    }
+                });
+        for (List<Record> result : results) {
+            for (Record record : result)
+                properties.put(record.get("id").asLong(), record.get("props").asMap());
+        }
+        return properties;
+    }
+
+    /**
+     * Method that opens the connection where the results of a pipeline are written back.
+     * In IN_PLACE mode this is the source database itself and nothing is deleted, otherwise it is the local database
+     * used only for the visual representation, which is cleared first.
+     *
+     * @param results = The communities found by the pipeline.
+     * @return The VisualGraph to call project on.
+     */
+    public VisualGraph open_projection(Map<Integer, Set<Node>> results) {
+        if (WRITEBACK_MODE == VisualGraph.WritebackMode.IN_PLACE)
+            return new VisualGraph("???", "???", "???", researchDB, results, nodeRelations, false);
+        if (projection_clearing != null)
+            return new VisualGraph("???", "???", "???", null, results, nodeRelations, projection_clearing);
+        return new VisualGraph("???", "???", "???", results, nodeRelations);
+    }
+
+    /**
+     * Method that starts clearing the projection database in the background, so it is empty by the time the pipeline
+     * has its results. Nothing is started unless background clearing is on, nor in IN_PLACE mode, because there the
+     * source database is written.
+     */
+    public void start_clearing_projection() {
+        if (CLEAR_IN_BACKGROUND && WRITEBACK_MODE != VisualGraph.WritebackMode.IN_PLACE)
+            projection_clearing = VisualGraph.deletePreviousAsync("???", "???", "???", null, VisualGraph.DELETE_BATCH_SIZE);
+    }
+
+    /**
+     * Method that starts the BIAS_NODES query on a background I/O thread, with its own session, so it runs while the
+     * graph is extracted and built instead of after the user chose a bias option.
+     *
+     * @return The records of the bias query once it is done.
+     */
+    public CompletableFuture<List<Record>> start_bias_query() {
+        return IoThreads.supplyAsync("neo4j-bias-query", () -> {
+            try (PipelineMetrics.Stage stage = PipelineMetrics.stage("neo4j_bias_query")) {
+                List<Record> biased_nodes = executeSimpleQuery(BIAS_NODES);
+                stage.items(biased_nodes.size());
+                return biased_nodes;
+            }
+        });
+    }
+
+    /**
+     * Method that waits for the bias query and keeps the biased nodes that are in the graph, one bit per dense node ID
+     * of compact_graph().
+     *
+     * @param bias_query = The query started by start_bias_query.
+     * @return The biased nodes to send to the bias variants of Label Propagation.
+     */
+    private static BiasSet resolve_bias(CompletableFuture<List<Record>> bias_query) {
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("bias_resolution")) {
+            BiasSet bias_node = BiasSet.fromRecords(bias_query.join(), compact_graph());
+            stage.items(bias_node.size());
+            return bias_node;
+        }
+    }
+
+    /**
+     * @param algorithm = Name of the algorithm, used as the name of the file.
+     * @return The checkpoint of an algorithm in CHECKPOINT_DIRECTORY, null when checkpoints are off.
+     */
+    private static Checkpoint checkpoint(String algorithm) {
+        if (CHECKPOINT_DIRECTORY == null)
+            return null;
+        return new Checkpoint(Paths.get(CHECKPOINT_DIRECTORY).resolve(algorithm + ".checkpoint"),
+                CHECKPOINT_EVERY_ITERATIONS, CHECKPOINT_EVERY_SECONDS);
+    }
+
+    /**
+     * @return The CompactGraph of the whole network, built the first time it is needed in the run. The label
+     * propagations only remove nodes from their copy of the Map, so the graph stays the one of nodeRelations.
+     */
+    private static CompactGraph compact_graph() {
+        if (compact_graph == null)
+            compact_graph = CompactGraph.fromNodeRelations(nodeRelations.keySet(), nodeRelations);
+        return compact_graph;
+    }
+
+    /**
+     * Method that scores the nodes around the biased nodes with Personalized PageRank and prints the most suspicious
+     * nodes of every community.
+     *
+     * @param bias_node = The biased nodes, the seeds of the walks.
+     * @param results = The communities found by the pipeline.
+     */
+    private static void score_suspicion(BiasSet bias_node, Map<Integer, Set<Node>> results) {
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("personalized_pagerank")) {
+            CommunityResult result = CommunityResult.of(results, compact_graph());
+            PersonalizedPageRank suspicion = new PersonalizedPageRank(result.getGraph(), bias_node);
+            suspicion.print_suspicion(result, SUSPICION_TOP_K);
+            stage.items(suspicion.touched());
+        }
+    }
+
+    /**
+     * Method that exports the results of a pipeline to files, when EXPORT_DIRECTORY is set.
+     *
+     * @param results = The communities found by the pipeline.
+     * @param metrics = Gives the same communities in primitive arrays, called only when EXPORT_COMMUNITY_METRICS is set.
+     * @throws IOException when a file cannot be written.
+     */
+    private void export_results(Map<Integer, Set<Node>> results, Supplier<CommunityResult> metrics) throws IOException {
+        if (EXPORT_DIRECTORY == null)
+            return;
+        CommunityExporter exporter = new CommunityExporter(results, nodeRelations);
+        if (EXPORT_RELATIONSHIP_PROPERTIES)
+            exporter.setRelationshipProperties(this::relationshipProperties);
+        if (EXPORT_COMMUNITY_METRICS)
+            exporter.setMetrics(metrics.get());
+        exporter.export(Paths.get(EXPORT_DIRECTORY));
+    }
+
+    /**
+     * Method that finishes a pipeline once the communities are found: prints their quality, exports them and
+     * projects them on the local neo4j so they can be visualised.
+     *
+     * @param results = The communities found by the pipeline.
+     * @throws Exception when the results cannot be exported or projected.
+     */
+    private void finish_pipeline(Map<Integer, Set<Node>> results) throws Exception {
+        finish_pipeline(results, () -> CommunityResult.of(results, compact_graph()));
+    }
+
+    /**
+     * @param results = The communities found by the pipeline.
+     * @param metrics = Gives the same communities in primitive arrays, for the export.
+     * @throws Exception when the results cannot be exported or projected.
+     */
+    private void finish_pipeline(Map<Integer, Set<Node>> results, Supplier<CommunityResult> metrics) throws Exception {
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("community_quality")) {
+            new CommunityQuality(results, nodeRelations).print_quality();
+            stage.items(nodeRelations.size());
+        }
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("export")) {
+            export_results(results, metrics);
+            stage.items(results.size());
+        }
+
+        /**
+         * At this stage pipeline has been applied, now we have the resultant structures and need to only visualise them.
+         * Below code connects on a local enterprise edition neo4j (Local DB) which it manually creates nodes and relations to
+         * represent the knowledge graph constructed from pipeline algorithms.
+         */
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("writeback");
+             VisualGraph project = open_projection(results)) {
+            project.project(WRITEBACK_MODE, WRITEBACK_BATCH_SIZE, IoThreads.concurrency(WRITEBACK_SESSIONS, VIRTUAL_WRITEBACK_SESSIONS));
+            for (Set<Node> community : results.values())
+                stage.items(community.size());
+        }
+    }
+
     /**
      * Main method, this is the controller and the flow of the program that will follow. Methods are
      * controlled and called from here.
@@ -144,24 +444,69 @@ public class Connector implements AutoCloseable {
      * @throws Exception
      */
     public static void main(String... args) throws Exception {
+        Reporter.configure(REPORT_VERBOSITY, REPORT_FILE == null ? null : Paths.get(REPORT_FILE));
+        IoThreads.configure(IO_MODE);
         try (Connector graphDB = new Connector("???", "???", "???")) {
-            // Get the number of nodes in the graph.
-            List<Record> number_nodes = graphDB.executeSimpleQuery(sub_query_relation);
-            //printSingleNodes(number_nodes);
+            if (DEGREE_REPORT_ONLY) {
+                // Only the aggregated rows come back, nothing is extracted, projected or cleared.
+                try (PipelineMetrics.Stage stage = PipelineMetrics.stage("push_down_degrees")) {
+                    PushDownAnalysis degrees = new PushDownAnalysis(graphDB, sub_query_relation, main_query_relation, DEGREE_TOP_K);
+                    degrees.print_report();
+                    stage.items(degrees.getNodeCount());
+                }
+                print_metrics();
+                return;
+            }
+            if (OFF_HEAP_ALGORITHM != null) {
+                graphDB.run_off_heap();
+                print_metrics();
+                return;
+            }
+
+            // With background clearing the projection database is cleared while the graph is extracted and analysed.
+            graphDB.start_clearing_projection();
 
-            // Apply query to all nodes and edges
-            List<Record> full_graph = graphDB.executeSimpleQuery(main_query_relation);
-            //printAllGraphResults(full_graph);
+            // The biased nodes are read on another session while the graph is extracted, options 3 and 4 use them.
+            CompletableFuture<List<Record>> bias_query = graphDB.start_bias_query();
 
+            // The filtering queries that decide which part of the knowledge graph is analysed. The node query runs in the
+            // background while the relations are streamed into the graph, one record at a time, so the records of the
+            // relations (with all their properties) are never kept.
+            Neo4jGraphSource source = new Neo4jGraphSource(graphDB, sub_query_relation, main_query_relation).startNodes();
+            GraphDB graph_nodes = new GraphDB();
+            try (PipelineMetrics.Stage stage = PipelineMetrics.stage("neo4j_relation_stream")) {
+                stage.items(source.streamRelations(graph_nodes::add_relation));
+            }
+
+            // Get the number of nodes in the graph.
+            List<Node> number_nodes;
+            try (PipelineMetrics.Stage stage = PipelineMetrics.stage("neo4j_node_query")) {
+                number_nodes = source.nodes();
+                for (Node node : number_nodes)
+                    graph_nodes.add_node(node);
+                stage.items(number_nodes.size());
+            }
+            //printSingleNodes(number_nodes);
 
-            // Give the size of graph and its list.
-            GraphDB graph_nodes = new GraphDB(number_nodes, full_graph);
             nodeRelations = graph_nodes.getNodeRelations();
+            compact_graph = null;
+
+            // PageRank of the full graph, so the structurally important nodes are known before any community detection.
+            // The constructor prints the most popular nodes, the scores are not kept.
+            if (FULL_GRAPH_PAGERANK) {
+                Reporter.message(Reporter.Verbosity.SUMMARY, "PageRank Centrality of the full graph===================================================== ");
+                try (PipelineMetrics.Stage stage = PipelineMetrics.stage("full_graph_pagerank")) {
+                    new PageRankCentrality(nodeRelations);
+                    stage.items(nodeRelations.size());
+                }
+            }
 
             boolean option = false;
             // Assign scanner to keyboard variable
             Scanner keyboard = new Scanner(System.in);
             while (!option) {
+                // The results published so far are written before the menu.
+                Reporter.flush();
                 System.out.println(USER_GUIDE);
                 int option_chosen = keyboard.nextShort();
 
@@ -170,95 +515,147 @@ public class Connector implements AutoCloseable {
                 correctMap.putAll(nodeRelations);
 
                 if (option_chosen == 1) {
-                    wccResult = new WConnectedComponents(number_nodes, nodeRelations);
+                    try (PipelineMetrics.Stage stage = PipelineMetrics.stage("weakly_connected_components")) {
+                        wccResult = new WConnectedComponents(number_nodes, nodeRelations);
+                        stage.items(number_nodes.size());
+                    }
                     option = true;
 
-                    /**
-                     * At this stage pipeline has been applied, now we have the resultant structures and need to only visualise them.
-                     * Below code connects on a local enterprise edition neo4j (Local DB) which it manually creates nodes and relations to
-                     * represent the knowledge graph constructed from pipeline algorithms.
-                     */
-                    try (VisualGraph project = new VisualGraph("???", "???", "???", wccResult.getFinal_results(), nodeRelations)) {
-                        project.projectNodesVisualLPA();
-                    }
+                    graphDB.finish_pipeline(wccResult.getFinal_results());
                 } else if (option_chosen == 2) {
-                    labelResults = new LabelPropagation(number_nodes, correctMap);
-                    labelResults.find_labelPropagation_communities();
+                    try (PipelineMetrics.Stage stage = PipelineMetrics.stage("label_propagation")) {
+                        if (LPA_ENSEMBLE_RUNS > 1) {
+                            labelResults = new EnsembleLabelPropagation(number_nodes, correctMap, LPA_ENSEMBLE_RUNS, LPA_CONSENSUS_THRESHOLD);
+                        } else if (LPA_BY_COMPONENT) {
+                            labelResults = new ComponentLabelPropagation(number_nodes, correctMap);
+                        } else {
+                            // Only the single run saves checkpoints, the ensemble and the components are not resumable.
+                            labelResults = new LabelPropagation(number_nodes, correctMap);
+                            labelResults.setCheckpoint(checkpoint("label_propagation"));
+                        }
+                        labelResults.setModularity_tolerance(LPA_MODULARITY_TOLERANCE);
+                        labelResults.find_labelPropagation_communities();
+                        stage.items(number_nodes.size());
+                    }
                     // In label propagation we remove nodes slowly from nodeRelations so we need to re-initialize it.
                     nodeRelations = graph_nodes.getNodeRelations();
                     option = true;
 
-                    /**
-                     * At this stage pipeline has been applied, now we have the resultant structures and need to only visualise them.
-                     * Below code connects on a local enterprise edition neo4j (Local DB) which it manually creates nodes and relations to
-                     * represent the knowledge graph constructed from pipeline algorithms.
-                     */
-                    try (VisualGraph project = new VisualGraph("???", "???", "???", labelResults.getFinal_results(), nodeRelations)) {
-                        project.projectNodesVisualLPA();
-                    }
+                    graphDB.finish_pipeline(labelResults.getFinal_results());
                 } else if (option_chosen == 3) {
-                    List<Record> biased_nodes = graphDB.executeSimpleQuery(BIAS_NODES);
-                    // Set of nodes that will hold all the nodes that are biased.
-                    Set<Node> bias_node = new HashSet<>();
-
-                    // Converting the records retrieved to nodes, so we can send to Label Propagation class.
-                    for (Record rec: biased_nodes) {
-                        // Index node's record to create Structure according to their ID.
-                        Value values = rec.get("n");
-
-                        // Initializing the Map structure.
-                        Node key = values.asNode();
-                        bias_node.add(key);
+                    // The biased nodes of the graph, read while the graph was extracted.
+                    BiasSet bias_node = resolve_bias(bias_query);
+
+                    try (PipelineMetrics.Stage stage = PipelineMetrics.stage("bias_introduced")) {
+                        biasResults = new BiasIntroduced(number_nodes, correctMap, bias_node);
+                        biasResults.setModularity_tolerance(LPA_MODULARITY_TOLERANCE);
+                        biasResults.setCheckpoint(checkpoint("bias_introduced"));
+                        biasResults.find_labelPropagation_communities();
+                        stage.items(number_nodes.size());
                     }
-
-                    biasResults = new BiasIntroduced(number_nodes, correctMap, bias_node);
-                    biasResults.find_labelPropagation_communities();
                     // In label propagation we remove nodes slowly from nodeRelations so we need to re-initialize it.
                     nodeRelations = graph_nodes.getNodeRelations();
                     option = true;
 
-                    /**
-                     * At this stage pipeline has been applied, now we have the resultant structures and need to only visualise them.
-                     * Below code connects on a local enterprise edition neo4j (Local DB) which it manually creates nodes and relations to
-                     * represent the knowledge graph constructed from pipeline algorithms.
-                     */
-                    try (VisualGraph project = new VisualGraph("???", "???", "???", biasResults.getFinal_results(), nodeRelations)) {
-                        project.projectNodesVisualLPA();
-                    }
+                    score_suspicion(bias_node, biasResults.getFinal_results());
+                    graphDB.finish_pipeline(biasResults.getFinal_results());
                 } else if (option_chosen == 4) {
-                    List<Record> biased_nodes = graphDB.executeSimpleQuery(BIAS_NODES);
-                    // Set of nodes that will hold all the nodes that are biased.
-                    Set<Node> bias_node = new HashSet<>();
-
-                    // Converting the records retrieved to nodes, so we can send to Label Propagation class.
-                    for (Record rec: biased_nodes) {
-                        // Index node's record to create Structure according to their ID.
-                        Value values = rec.get("n");
-
-                        // Initializing the Map structure.
-                        Node key = values.asNode();
-                        bias_node.add(key);
+                    // The biased nodes of the graph, read while the graph was extracted.
+                    BiasSet bias_node = resolve_bias(bias_query);
+
+                    try (PipelineMetrics.Stage stage = PipelineMetrics.stage("only_bias")) {
+                        onlybiasResults = new OnlyBias(number_nodes, correctMap, bias_node);
+                        onlybiasResults.setModularity_tolerance(LPA_MODULARITY_TOLERANCE);
+                        onlybiasResults.setCheckpoint(checkpoint("only_bias"));
+                        onlybiasResults.find_labelPropagation_communities();
+                        stage.items(number_nodes.size());
                     }
-
-                    onlybiasResults = new OnlyBias(number_nodes, correctMap, bias_node);
-                    onlybiasResults.find_labelPropagation_communities();
                     // In label propagation we remove nodes slowly from nodeRelations so we need to re-initialize it.
                     nodeRelations = graph_nodes.getNodeRelations();
                     option = true;
 
-                    /**
-                     * At this stage pipeline has been applied, now we have the resultant structures and need to only visualise them.
-                     * Below code connects on a local enterprise edition neo4j (Local DB) which it manually creates nodes and relations to
-                     * represent the knowledge graph constructed from pipeline algorithms.
-                     */
-                    try (VisualGraph project = new VisualGraph("???", "???", "???", onlybiasResults.getFinal_results(), nodeRelations)) {
-                        project.projectNodesVisualLPA();
+                    score_suspicion(bias_node, onlybiasResults.getFinal_results());
+                    graphDB.finish_pipeline(onlybiasResults.getFinal_results());
+                } else if (option_chosen == 5) {
+                    try (PipelineMetrics.Stage stage = PipelineMetrics.stage("louvain")) {
+                        louvainResults = new Louvain(number_nodes, nodeRelations);
+                        louvainResults.setCheckpoint(checkpoint("louvain"));
+                        louvainResults.find_louvain_communities();
+                        stage.items(number_nodes.size());
                     }
+                    option = true;
+
+                    // Louvain already has its communities in arrays over its own CompactGraph.
+                    graphDB.finish_pipeline(louvainResults.getFinal_results(), louvainResults::getResult);
                 }
 
             }
         }
 
+        print_metrics();
+    }
+
+    /**
+     * Method that runs OFF_HEAP_ALGORITHM on the graph of main_query_any, kept in an OffHeapGraph. The heap only holds
+     * the edge arrays while the graph is built, then the original ID of every node.
+     *
+     * @throws IOException when the graph cannot be mapped to OFF_HEAP_FILE.
+     */
+    private void run_off_heap() throws IOException {
+        Neo4jEdgeGraphSource source;
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("neo4j_edge_stream")) {
+            source = new Neo4jEdgeGraphSource(this, main_query_any);
+            stage.items(source.edgeCount());
+        }
+        OffHeapGraph graph;
+        long[] node_ids = source.originalIds();
+        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("off_heap_construction")) {
+            graph = source.offHeap(OFF_HEAP_FILE == null ? null : Paths.get(OFF_HEAP_FILE));
+            stage.items(source.edgeCount());
+        }
+        // The edge arrays are not needed anymore, they can be collected while the algorithm runs.
+        source = null;
+
+        try {
+            IntArray labels;
+            try (PipelineMetrics.Stage stage = PipelineMetrics.stage(OFF_HEAP_ALGORITHM)) {
+                if (OFF_HEAP_ALGORITHM.equals("components"))
+                    labels = WConnectedComponents.components(graph);
+                else if (OFF_HEAP_ALGORITHM.equals("propagation"))
+                    labels = LabelPropagation.propagate(graph, OFF_HEAP_LPA_ITERATIONS, OFF_HEAP_SEED, checkpoint("propagation"));
+                else
+                    throw new IllegalArgumentException("Unknown off-heap algorithm " + OFF_HEAP_ALGORITHM);
+                stage.items(graph.nodeCount());
+            }
+
+            // Size of every community, by label (both algorithms give labels from 0 to n - 1).
+            int n = graph.nodeCount();
+            IntArray sizes = graph.newIntArray(n);
+            int communities = 0;
+            int largest = 0;
+            for (int v = 0; v < n; v++) {
+                int size = sizes.get(labels.get(v)) + 1;
+                sizes.set(labels.get(v), size);
+                if (size == 1)
+                    communities++;
+                largest = Math.max(largest, size);
+            }
+            Reporter.message(Reporter.Verbosity.SUMMARY, OFF_HEAP_ALGORITHM + " found " + communities + " communities in "
+                    + n + " nodes, the largest has " + largest + " nodes");
+            if (Reporter.enabled(Reporter.Verbosity.NODES)) {
+                for (int v = 0; v < n; v++)
+                    Reporter.message(Reporter.Verbosity.NODES, "Node: " + node_ids[v] + "  Community: " + labels.get(v));
+            }
+        } finally {
+            graph.close();
+        }
+    }
 
+    /**
+     * Method that prints a machine readable summary of where the time went, one JSON object.
+     */
+    private static void print_metrics() {
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Pipeline metrics : " + PipelineMetrics.summary());
+        Reporter.flush();
     }
 }
@@ -64,7 +64,7 @@ public class DegreeCentrality {
         int count = 0;
         for (Map.Entry<Node, Integer> node : sorted) {
             count++;
-            System.out.println("["+count+" Popular node]" + node.getKey().labels() + node.getKey().values() + " " +  " has degree power " + node.getValue() );
+            Reporter.central_node(count, "Popular", node.getKey(), "has degree power", node.getValue(), null);
             if (count == 5)
                 break;
         }
@@ -0,0 +1,210 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Base class of the local graph sources. The graph is kept as two primitive arrays of edges (source, destination)
+ * over the dense node IDs 0 ... (node_count - 1), plus a short type code per edge (see RelationshipTypes). That is
+ * 10 bytes per edge, so graphs with hundreds of millions of edges fit in memory.
+ *
+ * compact() and offHeap() build the graph straight from the arrays. nodes() and graphDB() are only for the algorithms
+ * that work on the network of GraphDB (wcc, lpa, louvain): a CompactNode per node, and a CompactRelationship plus the
+ * Maps of GraphDB per edge, so that path needs a few hundred bytes per edge and is for graphs of up to a few million
+ * edges. WCC and LPA on larger graphs run on a GraphStorage (the components and propagation algorithms of
+ * LocalGraphRunner, OFF_HEAP_ALGORITHM of Connector), which only needs the arrays.
+ */
+public abstract class EdgeArrayGraphSource implements GraphSource {
+
+    // Type of the relations when the source does not have one.
+    public static final String DEFAULT_TYPE = "RELATED";
+    // Label of every generated node.
+    public static final String NODE_LABEL = "Node";
+
+    protected int node_count;
+    protected int edge_count;
+    protected int[] sources = new int[1024];
+    protected int[] destinations = new int[1024];
+    protected short[] types = new short[1024];
+    // ID of every dense node in the original data, null when the dense ID is the ID.
+    protected long[] original_ids;
+    // Dense ID of every original ID, and original ID of every dense ID, while the edges are added (see dense_id).
+    private LongIntMap dense_ids;
+    private long[] seen_ids;
+
+    private List<Node> nodes;
+
+    /**
+     * Method that adds an edge, growing the arrays when they are full.
+     */
+    protected void add_edge(int source, int destination, short type) {
+        if (edge_count == sources.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, sources.length * 2L);
+            if (capacity == edge_count)
+                throw new IllegalStateException("Too many edges for one graph: " + edge_count);
+            sources = Arrays.copyOf(sources, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        sources[edge_count] = source;
+        destinations[edge_count] = destination;
+        types[edge_count] = type;
+        edge_count++;
+    }
+
+    public long original_id(int v) {
+        return original_ids == null ? v : original_ids[v];
+    }
+
+    /**
+     * @return The original ID of every dense node.
+     */
+    public long[] originalIds() {
+        if (original_ids != null)
+            return original_ids;
+        long[] ids = new long[node_count];
+        for (int v = 0; v < node_count; v++)
+            ids[v] = v;
+        return ids;
+    }
+
+    public int nodeCount() {
+        return node_count;
+    }
+
+    public int edgeCount() {
+        return edge_count;
+    }
+
+    @Override
+    public CompactGraph compact() {
+        return CompactGraph.fromEdges(node_count, sources, destinations, edge_count);
+    }
+
+    /**
+     * Builds the graph off-heap straight from the edge arrays, without an on-heap CompactGraph in between.
+     * @param file = File the graph is mapped to, null to keep it in direct memory.
+     * @throws IOException when the file cannot be created or mapped.
+     */
+    public OffHeapGraph offHeap(Path file) throws IOException {
+        return OffHeapGraph.fromEdges(node_count, sources, destinations, edge_count, file);
+    }
+
+    /**
+     * @return The node of every dense ID, in order.
+     */
+    @Override
+    public List<Node> nodes() {
+        if (nodes == null) {
+            List<String> labels = Collections.singletonList(NODE_LABEL);
+            nodes = new ArrayList<>(node_count);
+            for (int v = 0; v < node_count; v++)
+                nodes.add(new CompactNode(original_id(v), labels));
+        }
+        return nodes;
+    }
+
+    /**
+     * Fills the GraphDB straight from the arrays, the ID of a relation is its position in the arrays.
+     */
+    @Override
+    public GraphDB graphDB() {
+        List<Node> nodes = nodes();
+        GraphDB graph = new GraphDB();
+        for (Node node : nodes)
+            graph.add_node(node);
+        for (int e = 0; e < edge_count; e++) {
+            graph.add_relation(nodes.get(sources[e]), nodes.get(destinations[e]),
+                    new CompactRelationship(e, original_id(sources[e]), original_id(destinations[e]), types[e]));
+        }
+        return graph;
+    }
+
+    /**
+     * @return The dense ID of a node, a new one the first time the node is seen.
+     */
+    protected int dense_id(long id) {
+        if (dense_ids == null) {
+            dense_ids = new LongIntMap();
+            seen_ids = new long[1024];
+        }
+        int dense = dense_ids.get(id);
+        if (dense < 0) {
+            dense = node_count++;
+            dense_ids.put(id, dense);
+            if (dense == seen_ids.length)
+                seen_ids = Arrays.copyOf(seen_ids, seen_ids.length * 2);
+            seen_ids[dense] = id;
+        }
+        return dense;
+    }
+
+    /**
+     * Method that keeps the original ID of every dense node, once every node has been seen.
+     */
+    protected void finish_dense_ids() {
+        original_ids = seen_ids == null ? new long[0] : Arrays.copyOf(seen_ids, node_count);
+        seen_ids = null;
+        dense_ids = null;
+    }
+
+    /**
+     * Open addressing hash map from long to int, so the IDs are not boxed (a HashMap<Long, Integer> needs about
+     * 60 bytes per node, this needs 12 bytes per slot).
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[1 << 16];
+        private int[] values = new int[1 << 16];
+        private boolean[] used = new boolean[1 << 16];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key)
+                    return values[slot];
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length)
+                grow();
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            if (!used[slot])
+                size++;
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void grow() {
+            long[] old_keys = keys;
+            int[] old_values = values;
+            boolean[] old_used = used;
+            keys = new long[old_keys.length * 2];
+            values = new int[old_keys.length * 2];
+            used = new boolean[old_keys.length * 2];
+            size = 0;
+            for (int i = 0; i < old_keys.length; i++) {
+                if (old_used[i])
+                    put(old_keys[i], old_values[i]);
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
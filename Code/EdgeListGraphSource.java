@@ -0,0 +1,128 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing NIO packages and Collection data structures packages.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GraphSource that reads an edge list file, one relation per line:
+ *      source_id,destination_id[,type]
+ * Separators can be commas, tabs or spaces (CSV or TSV). Lines starting with '#' and lines that do not start with a
+ * number (headers) are skipped. Node IDs can be any long, they are given dense IDs in the order they are first seen.
+ *
+ * The file is memory-mapped and parsed byte by byte, no String is created per line. Files larger than 2GB are mapped
+ * in windows, a line that crosses the end of a window is parsed again at the start of the next window.
+ */
+public class EdgeListGraphSource extends EdgeArrayGraphSource {
+
+    // Size of each mapped window of the file.
+    private static final long WINDOW = 1L << 30;
+
+    /**
+     * Constructor of the class, the whole file is read here.
+     * @param file = Path of the edge list.
+     * @throws IOException when the file cannot be read.
+     */
+    public EdgeListGraphSource(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last_window = position + length == size;
+                int consumed = parse(buffer, last_window);
+                if (consumed == 0)
+                    throw new IOException("Line longer than " + WINDOW + " bytes at position " + position + " of " + file);
+                position += consumed;
+            }
+        }
+        finish_dense_ids();
+    }
+
+    /**
+     * Method that parses all the complete lines of a window.
+     * @param last_window = True when the window ends at the end of the file, so the last line is complete without '\n'.
+     * @return Number of bytes of complete lines parsed.
+     */
+    private int parse(MappedByteBuffer buffer, boolean last_window) {
+        int limit = buffer.limit();
+        int line_start = 0;
+        for (int i = 0; i <= limit; i++) {
+            boolean end_of_line = i == limit ? last_window : buffer.get(i) == '\n';
+            if (!end_of_line)
+                continue;
+            if (i > line_start)
+                parse_line(buffer, line_start, i);
+            line_start = i + 1;
+        }
+        return Math.min(line_start, limit);
+    }
+
+    /**
+     * Method that parses one line between start (inclusive) and end (exclusive).
+     */
+    private void parse_line(MappedByteBuffer buffer, int start, int end) {
+        byte first = buffer.get(start);
+        if (first != '-' && (first < '0' || first > '9'))
+            return;
+
+        int[] position = {start};
+        long source = parse_long(buffer, position, end);
+        skip_separators(buffer, position, end);
+        long destination = parse_long(buffer, position, end);
+        skip_separators(buffer, position, end);
+
+        // Optional third column is the relationship type, up to the next separator.
+        short type;
+        int type_end = position[0];
+        while (type_end < end && !is_separator(buffer.get(type_end)))
+            type_end++;
+        if (type_end > position[0]) {
+            byte[] name = new byte[type_end - position[0]];
+            for (int i = 0; i < name.length; i++)
+                name[i] = buffer.get(position[0] + i);
+            type = RelationshipTypes.code(new String(name, StandardCharsets.UTF_8));
+        } else {
+            type = RelationshipTypes.code(DEFAULT_TYPE);
+        }
+        add_edge(dense_id(source), dense_id(destination), type);
+    }
+
+    private static long parse_long(MappedByteBuffer buffer, int[] position, int end) {
+        int i = position[0];
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative)
+            i++;
+        long value = 0;
+        int digits = 0;
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9')
+                break;
+            value = value * 10 + (b - '0');
+            digits++;
+            i++;
+        }
+        if (digits == 0)
+            throw new IllegalArgumentException("Expected a node ID at byte " + position[0] + " of the window");
+        position[0] = i;
+        return negative ? -value : value;
+    }
+
+    private static void skip_separators(MappedByteBuffer buffer, int[] position, int end) {
+        while (position[0] < end && is_separator(buffer.get(position[0])))
+            position[0]++;
+    }
+
+    private static boolean is_separator(byte b) {
+        return b == ',' || b == '\t' || b == ' ' || b == '\r' || b == ';';
+    }
+}
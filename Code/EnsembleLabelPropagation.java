@@ -0,0 +1,162 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, concurrency and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Label Propagation run several times with different seeds, combined into one consensus result.
+ *
+ * Label Propagation depends on the random visiting order and on the random tie breaks, so two runs rarely give the
+ * same communities. Here `runs` seeded runs of LabelPropagation.propagate are done at the same time on a work-stealing
+ * pool, all reading the same CompactGraph. Then every relation is kept only when its two nodes got the same label in
+ * at least `threshold` of the runs, and the consensus communities are the connected components of the kept relations.
+ *
+ * Nodes that the runs put together most of the time stay together, and the nodes on the border of two communities,
+ * which move from one run to the other, are cut off. With the same seed the result is always the same, and with one
+ * thread per run it takes about the time of the slowest run.
+ *
+ * A single kept relation joins two communities, so the threshold should be well above half of the runs (0.75 in
+ * Connector): at 0.5 a border node that switches sides in half of the runs is enough to merge its two communities.
+ *
+ * The results go back into node_labels, so the communities, printing and modularity are the same as LabelPropagation.
+ */
+public class EnsembleLabelPropagation extends LabelPropagation {
+
+    // Maximum iterations of every run, most stop much earlier because they converge.
+    public static final int MAX_RUN_ITER = 20;
+    // Seed of the first run when none is given, fixed so a result can be reproduced.
+    public static final long DEFAULT_SEED = 42;
+
+    private final int runs;
+    private final double threshold;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param all_nodes     = All the nodes involved in the graph.
+     * @param nodeRelations = All the connected nodes involved in the graph, together with their relationships.
+     * @param runs          = Number of runs of Label Propagation.
+     * @param threshold     = Fraction of the runs (between 0 and 1) that must put the two nodes of a relation together
+     *                        for the relation to be kept.
+     * @param threads       = Parallelism of the work-stealing pool.
+     * @param seed          = Seed of the runs, run r uses seed + r.
+     */
+    public EnsembleLabelPropagation(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations,
+                                    int runs, double threshold, int threads, long seed) {
+        super(all_nodes, nodeRelations);
+        if (runs < 1)
+            throw new IllegalArgumentException("Number of runs must be at least 1 but was " + runs);
+        if (threshold <= 0 || threshold > 1)
+            throw new IllegalArgumentException("Threshold must be in (0, 1] but was " + threshold);
+        this.runs = runs;
+        this.threshold = threshold;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public EnsembleLabelPropagation(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, int runs, double threshold) {
+        this(all_nodes, nodeRelations, runs, threshold, Runtime.getRuntime().availableProcessors(), DEFAULT_SEED);
+    }
+
+    /**
+     * Checkpoints are not supported here, the runs are combined only once all of them are done, so the checkpoint is ignored with a warning.
+     */
+    @Override
+    public void setCheckpoint(Checkpoint checkpoint) {
+        if (checkpoint != null)
+            Reporter.message(Reporter.Verbosity.SUMMARY, "EnsembleLabelPropagation does not save checkpoints, the checkpoint is ignored");
+    }
+
+    @Override
+    protected void find_labelPropagation_communities() {
+        // Nodes with no neighbours are removed, same as LabelPropagation.
+        removeSingleNodes();
+
+        CompactGraph graph = CompactGraph.fromNodeRelations(this.mapBeingModified.keySet(), this.mapBeingModified);
+        int n = graph.nodeCount();
+
+        // The runs only read the graph, every run has its own labels.
+        IntArray[] labels = new IntArray[runs];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int r = 0; r < runs; r++) {
+                int run = r;
+                tasks.add(pool.submit(() -> {
+                    labels[run] = propagate(graph, MAX_RUN_ITER, seed + run);
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks)
+                task.join();
+        } finally {
+            pool.shutdown();
+        }
+
+        // Number of runs that need to agree, the relation is kept when at least this many put its nodes together.
+        int needed = (int) Math.ceil(threshold * runs);
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        boolean[] keep = new boolean[targets.length];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = targets[i];
+                // Every relation is stored twice, it is decided once from its smaller node.
+                if (v <= u)
+                    continue;
+                int agree = 0;
+                for (int r = 0; r < runs && agree < needed; r++) {
+                    if (labels[r].get(u) == labels[r].get(v))
+                        agree++;
+                }
+                keep[i] = agree >= needed;
+            }
+        });
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k)
+                kept++;
+        }
+        int[] sources = new int[kept];
+        int[] destinations = new int[kept];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                if (keep[i]) {
+                    sources[e] = u;
+                    destinations[e] = targets[i];
+                    e++;
+                }
+            }
+        }
+        IntArray consensus = WConnectedComponents.components(CompactGraph.fromEdges(n, sources, destinations, kept));
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Consensus of " + runs + " Label Propagation runs kept " + kept + " of "
+                + targets.length / 2 + " relations (nodes together in at least " + needed + " runs)");
+
+        // Back to node_labels, so the rest of the class works on the result as usual. Every community takes the
+        // starting label (given by initLabels) of its first node, so it cannot clash with the label of a removed node.
+        int[] community_label = new int[n];
+        for (int v = 0; v < n; v++) {
+            int node_id = Integer.parseInt(String.valueOf(graph.node(v).id()));
+            int c = consensus.get(v);
+            if (community_label[c] == 0)
+                community_label[c] = this.node_labels.get(node_id);
+            this.node_labels.put(node_id, community_label[c]);
+        }
+        init_modularity();
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Modularity of the labels : " + this.modularity);
+
+        printCommunities();
+    }
+}
@@ -17,69 +17,92 @@ import java.util.*;
  */
 public class GraphDB {
 
-    private final List<Record> full_graph;
     private static Map<Node, Map<Node, Relationship>> nodeRelations;
 
     /**
      * Constructor that initializes important values and calls the appropriate methods to run the Algorithm.
+     * The records are not kept: once the Maps are built only the compact relations are left (see CompactRelationship),
+     * so the driver Relationships with their properties can be collected.
      * @param involved_nodes = A list that holds all the nodes that are involved in the graph
      * @param full_graph = A list of records of the Triangle relations in the graph. (NodeA-Relation-NodeB)
      */
     public GraphDB(List<Record> involved_nodes, List<Record> full_graph) {
+        this();
+        add_nodes(involved_nodes);
 
-        // Initializing all resulted filtering.
-        this.full_graph = full_graph;
+        // Call to method to Construct the Graph
+        init_Graph(full_graph);
+    }
 
+    /**
+     * Constructor of an empty graph, the relations are added one record at a time (add_relation) while a query is
+     * streamed, so the records of the whole graph are never in memory together.
+     */
+    public GraphDB() {
         // Creating a Data Structure that will hold the Community of Relations.
         // Outer Structure is a Map which the key is the Node's ID and the value is an
         // ArrayList of Integers that hold the Nodes ID's that are related.
         nodeRelations = new HashMap<>();
+    }
+
+    /**
+     * Method that adds the nodes involved in the graph, the ones without any relation get an empty Map.
+     * @param involved_nodes = A list that holds all the nodes that are involved in the graph
+     */
+    public void add_nodes(List<Record> involved_nodes) {
         for (Record node: involved_nodes) {
             // Index node's record to create Structure according to their ID.
             Value rec = node.get("n");
-
-            // Initializing the Map structure.
-            Node key = rec.asNode();
-            nodeRelations.put(key, new HashMap<>());
+            add_node(rec.asNode());
         }
+    }
 
-        // Call to method to Construct the Graph
-        init_Graph();
+    /**
+     * Method that adds one node, it gets an empty Map if it has no relation yet.
+     */
+    public void add_node(Node node) {
+        // Initializing the Map structure.
+        nodeRelations.putIfAbsent(node, new HashMap<>());
     }
 
     /**
      * Method that constructs the Graph for the nodes involved in query and problem.
      * Each node that is related with another node, they have two edges (ingoing, outgoing) added to
      * them. We need two relations because it is an undirected graph.
+     * @param full_graph = A list of records of the Triangle relations in the graph. (NodeA-Relation-NodeB)
      */
-    public void init_Graph() {
+    public void init_Graph(List<Record> full_graph) {
         // Loop through the list of records from query.
-        for (Record record : full_graph) {
-            // Indexing NodeA to get their ID so we can identify them.
-            Value node_one = record.get("n");
-            Node key_one = node_one.asNode();
+        for (Record record : full_graph)
+            add_relation(record);
+    }
 
-            // Indexing NodeB to get their ID so we can identify them.
-            Value node_two = record.get("m");
-            Node key_two = node_two.asNode();
+    /**
+     * Method that adds one relation record (NodeA-Relation-NodeB) to the graph. Only its ID, node IDs and type code
+     * are kept, the properties are read again from the server for the relations that are exported.
+     */
+    public void add_relation(Record record) {
+        // Indexing NodeA to get their ID so we can identify them.
+        Node key_one = record.get("n").asNode();
 
-            // Indexing Relation value of the edge.
-            Value relation_edge = record.get("r");
-            Relationship relation  = relation_edge.asRelationship();
+        // Indexing NodeB to get their ID so we can identify them.
+        Node key_two = record.get("m").asNode();
 
+        // Indexing Relation value of the edge.
+        Relationship relation = CompactRelationship.of(record.get("r").asRelationship());
 
-            // Adding an edge between the two Node's, we use their ID because its unique to connect them.
-            nodeRelations.get(key_one).put(key_two, relation);
-            nodeRelations.get(key_two).put(key_one, relation);
-        }
+        add_relation(key_one, key_two, relation);
     }
 
     /**
-     * Getter method for the full graph. Helps with better control of the application.
-     * @return the List of Records of he relational return filtering.
+     * Method that adds one relation between two nodes, for the sources that do not read records (see
+     * EdgeArrayGraphSource). Like the records, a second relation between the same nodes replaces the first one.
      */
-    public List<Record> getFull_graph(){
-        return full_graph;
+    public void add_relation(Node key_one, Node key_two, Relationship relation) {
+        // Adding an edge between the two Node's, we use their ID because its unique to connect them. The relations
+        // can be streamed before the nodes are added.
+        nodeRelations.computeIfAbsent(key_one, node -> new HashMap<>()).put(key_two, relation);
+        nodeRelations.computeIfAbsent(key_two, node -> new HashMap<>()).put(key_one, relation);
     }
 
     /**
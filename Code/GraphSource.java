@@ -0,0 +1,38 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+
+import java.util.List;
+
+/**
+ * Interface of everything the graph can be read from. The algorithms only need the nodes involved and the network
+ * of GraphDB, so the same pipeline runs on a neo4j server (Neo4jGraphSource), on an edge list file
+ * (EdgeListGraphSource) or on a generated graph (SyntheticGraphSource) without a Bolt connection.
+ *
+ * All the views of a source are the same undirected graph: like the Map of GraphDB, two nodes are connected once
+ * whatever the number of relations between them, and a self-loop is one neighbour of its node.
+ */
+public interface GraphSource {
+
+    /**
+     * @return Every node involved in the graph, the nodes of the records of sub_query_* in Connector.
+     */
+    List<Node> nodes();
+
+    /**
+     * Method that builds the network of the graph in a new GraphDB. GraphDB keeps the network in a static field, so
+     * this replaces the network of the run and is only called where the run builds it.
+     *
+     * @return The GraphDB of the nodes and relations.
+     */
+    GraphDB graphDB();
+
+    /**
+     * @return Primitive version of the graph for the algorithms that run on CompactGraph, built without GraphDB.
+     */
+    CompactGraph compact();
+}
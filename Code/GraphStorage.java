@@ -0,0 +1,39 @@
+/**
+ * Read API of a primitive undirected graph, shared by the on-heap CompactGraph and the off-heap OffHeapGraph.
+ * Nodes have dense IDs between 0 and (nodeCount() - 1). The neighbours of node v are target(offset(v)) ...
+ * target(offset(v + 1) - 1), every relation is stored in both directions.
+ *
+ * Positions in the adjacency are longs, so an off-heap graph can have more than 2^31 entries.
+ */
+public interface GraphStorage {
+
+    int nodeCount();
+
+    /**
+     * @return Number of entries in the adjacency, every undirected relation counts twice.
+     */
+    long entryCount();
+
+    /**
+     * @return Position of the first neighbour of v, offset(nodeCount()) is entryCount().
+     */
+    long offset(int v);
+
+    /**
+     * @return Dense ID of the neighbour at a position of the adjacency.
+     */
+    int target(long position);
+
+    default int degree(int v) {
+        return (int) (offset(v + 1) - offset(v));
+    }
+
+    /**
+     * Array for per node values of the algorithms (labels, components, queues), kept where the graph is kept so an
+     * off-heap graph does not need node_count ints on the heap for each of them.
+     * @param size = Number of ints.
+     */
+    default IntArray newIntArray(int size) {
+        return new IntArray.Heap(size);
+    }
+}
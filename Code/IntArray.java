@@ -0,0 +1,44 @@
+/**
+ * Array of ints that can be kept on the heap or off-heap (see GraphStorage.newIntArray).
+ */
+public interface IntArray {
+
+    int size();
+
+    int get(int index);
+
+    void set(int index, int value);
+
+    /**
+     * IntArray over a plain int[].
+     */
+    final class Heap implements IntArray {
+        private final int[] values;
+
+        public Heap(int size) {
+            this.values = new int[size];
+        }
+
+        /**
+         * @param values = The array itself, not a copy.
+         */
+        public Heap(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, int value) {
+            values[index] = value;
+        }
+    }
+}
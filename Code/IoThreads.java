@@ -0,0 +1,168 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing invoke, concurrency and function packages.
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Class that gives the threads for the blocking I/O of the pipeline: the queries of the extraction, the reads of the
+ * relation properties, the clearing of the projection database and the writeback sessions.
+ *
+ * A call of the neo4j driver keeps its thread waiting for the server. In PLATFORM mode every call that runs at the
+ * same time takes one operating system thread, so only a few of them are started. In VIRTUAL mode (Java 21 and later,
+ * see the modern-jdk profile of the pom) every call runs on its own virtual thread, which gives its carrier thread
+ * back while it waits, so hundreds of queries and writeback batches can be in flight for the cost of a few threads.
+ * The virtual threads are created through a MethodHandle, so the code still compiles and runs on older JDKs, where
+ * VIRTUAL falls back to PLATFORM.
+ *
+ * The algorithms are CPU bound and do not use this class: they keep their ForkJoinPool (or the common pool of the
+ * parallel streams) sized to the number of processors, where virtual threads would only add scheduling work.
+ */
+public final class IoThreads {
+
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), null when the JDK has no virtual threads.
+    private static final MethodHandle VIRTUAL_EXECUTOR = find_virtual_executor();
+
+    private static volatile Mode mode = Mode.PLATFORM;
+
+    private IoThreads() {
+    }
+
+    private static MethodHandle find_virtual_executor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param io_mode = Threads used for the I/O from now on. VIRTUAL is kept as PLATFORM when the JDK has no virtual
+     *                  threads.
+     */
+    public static void configure(Mode io_mode) {
+        if (io_mode == Mode.VIRTUAL && VIRTUAL_EXECUTOR == null)
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Virtual threads need Java 21 or later, the I/O runs on platform threads");
+        mode = io_mode == Mode.VIRTUAL && VIRTUAL_EXECUTOR != null ? Mode.VIRTUAL : Mode.PLATFORM;
+    }
+
+    /**
+     * @return If the I/O runs on virtual threads.
+     */
+    public static boolean virtual() {
+        return mode == Mode.VIRTUAL;
+    }
+
+    /**
+     * @param platform = Number of calls in flight on platform threads.
+     * @param virtual = Number of calls in flight on virtual threads.
+     * @return The number of calls to run at the same time in the current mode.
+     */
+    public static int concurrency(int platform, int virtual) {
+        return virtual() ? virtual : platform;
+    }
+
+    /**
+     * Method that creates an executor for blocking calls. It must be shut down by the caller.
+     *
+     * @param name = Name of the platform threads.
+     * @param threads = Number of platform threads, not used by virtual threads (one per task).
+     * @return A new virtual thread per task executor in VIRTUAL mode, a pool of daemon threads otherwise.
+     */
+    public static ExecutorService executor(String name, int threads) {
+        if (virtual()) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot create the virtual thread executor", e);
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threads == 1 ? name : name + "-" + count.incrementAndGet());
+            // Must not keep the JVM alive if the pipeline fails.
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method that runs one blocking call in the background on its own thread.
+     *
+     * @param name = Name of the thread, in PLATFORM mode.
+     * @param call = The call.
+     * @return The result of the call once it is done.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(String name, Supplier<T> call) {
+        ExecutorService background = executor(name, 1);
+        try {
+            return CompletableFuture.supplyAsync(call, background);
+        } finally {
+            // The call already submitted still runs, the thread ends after it.
+            background.shutdown();
+        }
+    }
+
+    /**
+     * Method that runs tasks 0 to (tasks - 1), with at most (concurrency) of them in flight, and waits for all of them.
+     * Every worker takes the next task when it finished its previous one, so slow tasks do not hold the others back.
+     *
+     * @param name = Name of the platform threads.
+     * @param tasks = Number of tasks.
+     * @param concurrency = Number of tasks running at the same time.
+     * @param task = Runs one task and returns its result.
+     * @return The result of every task, in the order of the tasks.
+     */
+    public static <T> List<T> runAll(String name, int tasks, int concurrency, IntFunction<T> task) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1 but was " + concurrency);
+        Object[] results = new Object[tasks];
+        int workers = Math.min(tasks, concurrency);
+        if (workers > 0) {
+            AtomicInteger next = new AtomicInteger();
+            ExecutorService pool = executor(name, workers);
+            try {
+                List<Future<?>> running = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    running.add(pool.submit(() -> {
+                        for (int t = next.getAndIncrement(); t < tasks; t = next.getAndIncrement())
+                            results[t] = task.apply(t);
+                    }));
+                }
+                for (Future<?> worker : running)
+                    worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(name + " was interrupted", e);
+            } catch (ExecutionException e) {
+                // The other workers stop at their next task.
+                next.set(tasks);
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(name + " failed", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        List<T> ordered = new ArrayList<>(tasks);
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            T value = (T) result;
+            ordered.add(value);
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing invoke, annotation and Collection data structures packages.
+ */
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One type of custom JFR event of PipelineMetrics (category "Neo4j Algo"). The event type is defined at runtime with
+ * the dynamic event API of jdk.jfr (EventFactory, Java 12 and later) and called through MethodHandles, like the
+ * virtual threads of IoThreads, so the code compiles with --release 8 and runs on JVMs without JFR, where no event is
+ * emitted.
+ */
+final class JfrEvents {
+
+    private static final String CATEGORY = "Neo4j Algo";
+
+    // jdk.jfr.Event methods, all null when the JVM has no dynamic JFR events.
+    private static final MethodHandle BEGIN;
+    private static final MethodHandle END;
+    private static final MethodHandle SHOULD_COMMIT;
+    private static final MethodHandle SET;
+    private static final MethodHandle COMMIT;
+
+    static {
+        MethodHandle begin = null, end = null, should_commit = null, set = null, commit = null;
+        try {
+            Class<?> event = Class.forName("jdk.jfr.Event");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodType no_arguments = MethodType.methodType(void.class, Object.class);
+            begin = lookup.findVirtual(event, "begin", MethodType.methodType(void.class)).asType(no_arguments);
+            end = lookup.findVirtual(event, "end", MethodType.methodType(void.class)).asType(no_arguments);
+            should_commit = lookup.findVirtual(event, "shouldCommit", MethodType.methodType(boolean.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class));
+            set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class))
+                    .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+            commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class)).asType(no_arguments);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            begin = null;
+        }
+        BEGIN = begin;
+        END = end;
+        SHOULD_COMMIT = should_commit;
+        SET = set;
+        COMMIT = commit;
+    }
+
+    // EventFactory.newEvent() of this event type, null when the JVM has no dynamic JFR events.
+    private final MethodHandle new_event;
+
+    private JfrEvents(MethodHandle new_event) {
+        this.new_event = new_event;
+    }
+
+    /**
+     * Method that defines an event type.
+     *
+     * @param name = Name of the event in the recordings.
+     * @param label = Label of the event.
+     * @param description = Description of the event.
+     * @param field_names = Names of the fields, in the order of the values given to commit.
+     * @param field_types = Types of the fields (primitives or String).
+     * @param field_labels = Labels of the fields.
+     * @param bytes_field = Name of the field that is an amount of bytes, null for none.
+     * @return The event type, one that emits nothing when the JVM has no dynamic JFR events.
+     */
+    static JfrEvents define(String name, String label, String description, String[] field_names,
+                            Class<?>[] field_types, String[] field_labels, String bytes_field) {
+        if (BEGIN == null)
+            return new JfrEvents(null);
+        try {
+            List<Object> annotations = Arrays.asList(
+                    annotation("jdk.jfr.Name", name),
+                    annotation("jdk.jfr.Label", label),
+                    annotation("jdk.jfr.Category", new String[]{CATEGORY}),
+                    annotation("jdk.jfr.Description", description));
+
+            Class<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor");
+            MethodHandle new_descriptor = MethodHandles.publicLookup().findConstructor(descriptor,
+                    MethodType.methodType(void.class, Class.class, String.class, List.class));
+            List<Object> fields = new ArrayList<>();
+            for (int i = 0; i < field_names.length; i++) {
+                List<Object> field_annotations = new ArrayList<>();
+                field_annotations.add(annotation("jdk.jfr.Label", field_labels[i]));
+                if (field_names[i].equals(bytes_field))
+                    field_annotations.add(annotation("jdk.jfr.DataAmount", "BYTES"));
+                fields.add(new_descriptor.invoke(field_types[i], field_names[i], field_annotations));
+            }
+
+            Class<?> factory_class = Class.forName("jdk.jfr.EventFactory");
+            Object factory = MethodHandles.publicLookup().findStatic(factory_class, "create",
+                    MethodType.methodType(factory_class, List.class, List.class)).invoke(annotations, fields);
+            MethodHandle new_event = MethodHandles.publicLookup().findVirtual(factory_class, "newEvent",
+                    MethodType.methodType(Class.forName("jdk.jfr.Event"))).bindTo(factory)
+                    .asType(MethodType.methodType(Object.class));
+            return new JfrEvents(new_event);
+        } catch (Throwable e) {
+            // Java 11 has jdk.jfr but no EventFactory.
+            return new JfrEvents(null);
+        }
+    }
+
+    /**
+     * @return A jdk.jfr.AnnotationElement of the annotation with the given value.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object annotation(String type, Object value) throws Throwable {
+        Class<? extends Annotation> annotation = (Class<? extends Annotation>) Class.forName(type);
+        Class<?> element = Class.forName("jdk.jfr.AnnotationElement");
+        return MethodHandles.publicLookup().findConstructor(element,
+                MethodType.methodType(void.class, Class.class, Object.class)).invoke(annotation, value);
+    }
+
+    /**
+     * @return A new event that started now, null when no events are emitted.
+     */
+    Object begin() {
+        if (new_event == null)
+            return null;
+        try {
+            Object event = (Object) new_event.invokeExact();
+            BEGIN.invokeExact(event);
+            return event;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot begin the JFR event", e);
+        }
+    }
+
+    /**
+     * Method that ends an event and commits it with the values of its fields, when the recording wants it.
+     *
+     * @param event = Event given by begin, nothing is done when it is null.
+     * @param values = Value of every field, in the order of the definition.
+     */
+    void commit(Object event, Object... values) {
+        if (event == null)
+            return;
+        try {
+            END.invokeExact(event);
+            if (!(boolean) SHOULD_COMMIT.invokeExact(event))
+                return;
+            for (int i = 0; i < values.length; i++)
+                SET.invokeExact(event, i, values[i]);
+            COMMIT.invokeExact(event);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot commit the JFR event", e);
+        }
+    }
+}
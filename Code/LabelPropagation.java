@@ -3,7 +3,6 @@
  * be successful.
  * Importing neo4j driver packages and Collection data structures packages.
  */
-import org.neo4j.driver.Record;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 import java.util.*;
@@ -20,7 +19,7 @@ import java.util.*;
  *      Here returns the label occurring with the highest frequency among neighbours. Select a label at random if there
  *      are multiple highest frequency labels.
  * 5. If every node has a label that the maximum number of their neighbours have, then stop the algorithm. Else, set t = t + 1 and go to (3).
- */ *
+ */
 
 
 public class LabelPropagation {
@@ -42,7 +41,7 @@ public class LabelPropagation {
     protected final Map<Node, Map<Node, Relationship>> nodeRelations;
     protected Map<Integer, Integer> node_labels;
     protected Map<Integer, Integer> node_labels_past;
-    protected final List<Record> all_nodes;
+    protected final List<Node> all_nodes;
     protected List<Node> network_keys;
     protected Map<Node, Map<Node, Relationship>> mapBeingModified;
     protected boolean labels_changed;
@@ -50,6 +49,29 @@ public class LabelPropagation {
 
     protected final int MAX_ITER = 5;
 
+    /**
+     * Modularity of the current labels, kept up to date every time a node changes label so it costs nothing to read
+     * after each iteration. Only the nodes left in mapBeingModified and the relations between them are considered.
+     * twice_edges = Sum of the degrees (every relation counted from both sides).
+     * twice_internal = Same, but only relations between nodes with the same label.
+     * label_volume = Sum of the degrees of the nodes of each label.
+     * volume_squares = Sum of the squared label volumes.
+     * modularity_tolerance = When the modularity grows less than this in an iteration the algorithm stops. Negative
+     *                        means it is not used as a stopping criteria.
+     */
+    protected long twice_edges;
+    protected long twice_internal;
+    protected Map<Integer, Long> label_volume;
+    protected double volume_squares;
+    protected double modularity;
+    protected double modularity_tolerance = -1;
+    // Number of nodes whose label changed in the current iteration.
+    protected long changed_labels;
+    // Where the labels are saved every few iterations, null to not save them.
+    protected Checkpoint checkpoint;
+    // False to only find the communities, without the Degree, PageRank and Betweenness of each one (benchmarks).
+    protected boolean community_centrality = true;
+
     /**
      * Constructor of class Label Propagation Community Detector algorithm.
      *
@@ -57,7 +79,7 @@ public class LabelPropagation {
      * @param nodeRelations = All the connected nodes involved in the graph, together with their relationships and
      *                      relationship details.
      */
-    public LabelPropagation(List<Record> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations) {
+    public LabelPropagation(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations) {
         this.all_nodes = all_nodes;
         this.nodeRelations = nodeRelations;
         // Cloning the map
@@ -82,8 +104,7 @@ public class LabelPropagation {
 
         int i = 1;
         // Loop through all the nodes involved in the knowledge graph and assign a unique label.
-        for (Record node : this.all_nodes) {
-            Node node_data = node.get("n").asNode();
+        for (Node node_data : this.all_nodes) {
             int node_id = Integer.parseInt(String.valueOf(node_data.id()));
             // Assigning Key-Value pairs (Node, label)
             labels.put(node_id, i);
@@ -103,13 +124,20 @@ public class LabelPropagation {
          * They also offer information in structure, however the time-complexity increases a lot.
          */
         removeSingleNodes();
+        // A run stopped before goes on from its last checkpoint.
+        long fingerprint = checkpoint == null ? 0 : Checkpoint.fingerprint(this.all_nodes, this.nodeRelations);
+        int counter = resume_checkpoint(fingerprint);
+        init_modularity();
         /**
          * Using DO-WHILE because code will always run at least once and match labels.
          * So we shuffle the keys at least one, we need to shuffle keys in every iteration.
          */
-        int counter = 0;
         boolean max_nei = false;
+        double previous_modularity;
         do {
+            previous_modularity = this.modularity;
+            PipelineMetrics.Iteration iteration = PipelineMetrics.iteration(getClass().getSimpleName(), counter + 1);
+            this.changed_labels = 0;
             // STEP [3] of the pseudocode is to shuffle the keys and take them to random order.
             this.network_keys = shuffle_nodes();
 
@@ -138,17 +166,66 @@ public class LabelPropagation {
              * It should satisfy for all the nodes!!!
              */
             max_nei = checkNeighboursLabel();
-            System.out.println("Does node have labels of maximum neighbour? : " + max_nei);
+            Reporter.iteration(getClass().getSimpleName(), counter + 1, this.changed_labels, this.modularity);
+            Reporter.message(Reporter.Verbosity.ITERATIONS, "Does node have labels of maximum neighbour? : " + max_nei);
+            iteration.end(this.changed_labels, this.modularity);
 
 
             counter = counter + 1;
+            save_checkpoint(fingerprint, counter);
 
             // Default maxIteration in neo4j manual is 10. [need some working here] && (counter < MAX_ITER)
-        } while (labels_changed && !max_nei && MAX_ITER > counter);
+        } while (labels_changed && !max_nei && MAX_ITER > counter && !modularity_converged(previous_modularity));
+        if (checkpoint != null)
+            checkpoint.delete();
 
         printCommunities();
     }
 
+    /**
+     * @param checkpoint = Where the labels are saved every few iterations and resumed from, null to not save them.
+     */
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Method that puts back the labels of the last checkpoint of this algorithm on the same network.
+     * @param fingerprint = Fingerprint of the network (Checkpoint.fingerprint).
+     * @return Number of iterations already done, 0 when there is nothing to resume.
+     */
+    protected int resume_checkpoint(long fingerprint) {
+        if (checkpoint == null)
+            return 0;
+        Checkpoint.State state = checkpoint.load(getClass().getSimpleName(), fingerprint);
+        if (state == null)
+            return 0;
+        int[] node_ids = state.getArrays()[0];
+        int[] labels = state.getArrays()[1];
+        for (int i = 0; i < node_ids.length; i++)
+            this.node_labels.put(node_ids[i], labels[i]);
+        return state.getIteration();
+    }
+
+    /**
+     * Method that saves the labels (node ID and label pairs) when a checkpoint is due.
+     * @param fingerprint = Fingerprint of the network (Checkpoint.fingerprint).
+     * @param counter = Number of iterations done.
+     */
+    protected void save_checkpoint(long fingerprint, int counter) {
+        if (checkpoint == null || !checkpoint.due(counter))
+            return;
+        int[] node_ids = new int[this.node_labels.size()];
+        int[] labels = new int[this.node_labels.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> label : this.node_labels.entrySet()) {
+            node_ids[i] = label.getKey();
+            labels[i] = label.getValue();
+            i++;
+        }
+        checkpoint.save(getClass().getSimpleName(), fingerprint, counter, new IntArray.Heap(node_ids), new IntArray.Heap(labels));
+    }
+
     protected boolean checkNeighboursLabel() {
         int maximum_label = 0;
         int label_occurence = Integer.MIN_VALUE;
@@ -184,8 +261,7 @@ public class LabelPropagation {
      */
     protected void removeSingleNodes() {
 
-        for (Record node : this.all_nodes) {
-            Node node_data = node.get("n").asNode();
+        for (Node node_data : this.all_nodes) {
             Map<Node, Relationship> node_relations = this.mapBeingModified.get(node_data);
 
             // If node does not have any neighbours, remove the record from network.
@@ -247,7 +323,111 @@ public class LabelPropagation {
         }
 
         // Getting maximum occurred label to change label
-        this.node_labels.put(Integer.parseInt(String.valueOf(node.id())), label_shuffler(label_counter));
+        int node_id = Integer.parseInt(String.valueOf(node.id()));
+        int new_label = label_shuffler(label_counter);
+        Integer old_label = this.node_labels.put(node_id, new_label);
+        if (old_label == null || old_label != new_label)
+            this.changed_labels++;
+        if (this.label_volume != null && old_label != null && old_label != new_label)
+            update_modularity(node, old_label, new_label);
+    }
+
+    /**
+     * Method that computes the modularity of the starting labels, after the single nodes have been removed.
+     */
+    protected void init_modularity() {
+        this.label_volume = new HashMap<>();
+        this.twice_edges = 0;
+        this.twice_internal = 0;
+        for (Node node : this.mapBeingModified.keySet()) {
+            Integer label = this.node_labels.get(Integer.parseInt(String.valueOf(node.id())));
+            long degree = 0;
+            for (Node neighbour : this.mapBeingModified.get(node).keySet()) {
+                if (!this.mapBeingModified.containsKey(neighbour))
+                    continue;
+                degree++;
+                if (label.equals(this.node_labels.get(Integer.parseInt(String.valueOf(neighbour.id())))))
+                    this.twice_internal++;
+            }
+            this.twice_edges += degree;
+            Long volume = this.label_volume.get(label);
+            this.label_volume.put(label, volume == null ? degree : volume + degree);
+        }
+        this.volume_squares = 0;
+        for (long volume : this.label_volume.values())
+            this.volume_squares += (double) volume * volume;
+        this.modularity = compute_modularity();
+    }
+
+    /**
+     * Method that updates the modularity when a node moves from old_label to new_label. Only the relations of the
+     * node are visited, so it costs O(degree) instead of going over the whole graph.
+     */
+    protected void update_modularity(Node node, int old_label, int new_label) {
+        long degree = 0;
+        long with_old = 0;
+        long with_new = 0;
+        for (Node neighbour : this.mapBeingModified.get(node).keySet()) {
+            if (!this.mapBeingModified.containsKey(neighbour))
+                continue;
+            degree++;
+            // A relation of the node with itself stays internal whatever the label is.
+            if (neighbour.equals(node))
+                continue;
+            int label = this.node_labels.get(Integer.parseInt(String.valueOf(neighbour.id())));
+            if (label == old_label)
+                with_old++;
+            else if (label == new_label)
+                with_new++;
+        }
+        // Each relation counts from both sides.
+        this.twice_internal += 2 * (with_new - with_old);
+
+        long old_volume = this.label_volume.getOrDefault(old_label, 0L);
+        long new_volume = this.label_volume.getOrDefault(new_label, 0L);
+        this.volume_squares += (double) (old_volume - degree) * (old_volume - degree) - (double) old_volume * old_volume;
+        this.volume_squares += (double) (new_volume + degree) * (new_volume + degree) - (double) new_volume * new_volume;
+        this.label_volume.put(old_label, old_volume - degree);
+        this.label_volume.put(new_label, new_volume + degree);
+
+        this.modularity = compute_modularity();
+    }
+
+    /**
+     * Modularity Q = internal / 2m - SUM[label] (volume / 2m)^2
+     */
+    protected double compute_modularity() {
+        if (this.twice_edges == 0)
+            return 0;
+        double m2 = this.twice_edges;
+        return this.twice_internal / m2 - this.volume_squares / (m2 * m2);
+    }
+
+    /**
+     * Early stopping criteria: true when the modularity did not grow enough in the last iteration.
+     *
+     * @param previous_modularity = Modularity before the iteration.
+     */
+    protected boolean modularity_converged(double previous_modularity) {
+        return this.modularity_tolerance >= 0 && this.modularity - previous_modularity < this.modularity_tolerance;
+    }
+
+    /**
+     * Setter of the modularity tolerance. A negative value (default) turns the early stopping off.
+     */
+    public void setModularity_tolerance(double modularity_tolerance) {
+        this.modularity_tolerance = modularity_tolerance;
+    }
+
+    /**
+     * Setter of the centralities computed for every community by printCommunities, true by default.
+     */
+    public void setCommunity_centrality(boolean community_centrality) {
+        this.community_centrality = community_centrality;
+    }
+
+    public double getModularity() {
+        return this.modularity;
     }
 
     /**
@@ -320,19 +500,13 @@ public class LabelPropagation {
         for (Integer label : final_results.keySet()) {
             Set<Node> node_in_community = final_results.get(label);
             if (node_in_community.size() > 1) {
-                System.out.println("[" + counter + "] Community Label is: " + label);
-                System.out.println("Size of community is :" + node_in_community.size());
+                Reporter.community(counter, label, node_in_community);
                 counter++;
+                if (!community_centrality)
+                    continue;
 
                 // Create an ArrayList to get send to degree centrality.
-                Set<Node> nodes_degree = new HashSet<>();
-
-                for (Node unique_node : node_in_community) {
-                    System.out.print("Node: " + Integer.parseInt(String.valueOf(unique_node.id())) + "  ");
-                    nodes_degree.add(unique_node);
-
-                }
-                System.out.println();
+                Set<Node> nodes_degree = new HashSet<>(node_in_community);
 
                 // Create a Map with the correct network structure.
                 Map<Node, Map<Node, Relationship>> correct_network = new HashMap<>();
@@ -355,7 +529,12 @@ public class LabelPropagation {
                 }
                 ArrayList<Node> all_nodes_unique = new ArrayList<>();
                 all_nodes_unique.addAll(nodes_degree);
-                new DegreeCentrality(all_nodes_unique, correct_network);
+                try (PipelineMetrics.Stage stage = PipelineMetrics.stage("centrality")) {
+                    new DegreeCentrality(all_nodes_unique, correct_network);
+                    new PageRankCentrality(all_nodes_unique, correct_network);
+                    new BetweennessCentrality(all_nodes_unique, correct_network);
+                    stage.items(all_nodes_unique.size());
+                }
             }
 
         }
@@ -460,4 +639,156 @@ public class LabelPropagation {
         return communityClusters;
     }
 
-}
\ No newline at end of file
+    /**
+     * Label Propagation over a primitive graph (CompactGraph or OffHeapGraph), following the same pseudocode as the
+     * detector: every node starts with its own label, the nodes are visited in a new random order every iteration and
+     * take the label most of their neighbours have, a tie is broken at random. It stops when every node already had a
+     * label that the maximum number of its neighbours have, or after max_iterations.
+     *
+     * Labels and the visiting order are arrays of the graph's storage (newIntArray), so an off-heap graph keeps them
+     * off-heap too. The only heap array is the scratch space for the labels of one neighbourhood.
+     *
+     * @param graph = The graph, read through GraphStorage.
+     * @param max_iterations = Maximum number of iterations.
+     * @param seed = Seed of the random order and of the tie breaks.
+     * @return The label of every dense node ID.
+     */
+    public static IntArray propagate(GraphStorage graph, int max_iterations, long seed) {
+        return propagate(graph, max_iterations, seed, null);
+    }
+
+    /**
+     * Same as above, saving the labels and the visiting order to a checkpoint. When the checkpoint holds a previous
+     * run on the same graph, the run goes on from there. Every iteration has its own random generator (seeded from
+     * seed and the iteration), so a resumed run ends with the same labels as a run that was never stopped.
+     *
+     * @param checkpoint = Where the run is saved and resumed from, null to not save it.
+     */
+    public static IntArray propagate(GraphStorage graph, int max_iterations, long seed, Checkpoint checkpoint) {
+        int n = graph.nodeCount();
+        IntArray labels = graph.newIntArray(n);
+        IntArray order = graph.newIntArray(n);
+        int max_degree = 0;
+        for (int v = 0; v < n; v++)
+            max_degree = Math.max(max_degree, graph.degree(v));
+        int[] neighbour_labels = new int[max_degree];
+        Random random = new Random();
+
+        // The checkpoint is read straight into the labels and the order, which stay off-heap for an OffHeapGraph.
+        int first_iteration = 1;
+        long fingerprint = 0;
+        if (checkpoint != null) {
+            fingerprint = Checkpoint.fingerprint(graph);
+            first_iteration = checkpoint.loadInto("LabelPropagation.propagate", fingerprint, labels, order) + 1;
+        }
+        if (first_iteration == 1) {
+            for (int v = 0; v < n; v++) {
+                labels.set(v, v);
+                order.set(v, v);
+            }
+        }
+
+        for (int iteration = first_iteration; iteration <= max_iterations; iteration++) {
+            PipelineMetrics.Iteration metrics = PipelineMetrics.iteration("LabelPropagation.propagate", iteration);
+            random.setSeed(seed + iteration * 0x9E3779B97F4A7C15L);
+            // Fisher-Yates shuffle of the visiting order.
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order.get(i);
+                order.set(i, order.get(j));
+                order.set(j, swap);
+            }
+
+            long changed = 0;
+            // Nodes whose label was not one of the most frequent of their neighbours.
+            long unstable = 0;
+            for (int k = 0; k < n; k++) {
+                int v = order.get(k);
+                int degree = 0;
+                long end = graph.offset(v + 1);
+                for (long i = graph.offset(v); i < end; i++)
+                    neighbour_labels[degree++] = labels.get(graph.target(i));
+                if (degree == 0)
+                    continue;
+
+                int current = labels.get(v);
+                int best_label = most_frequent_label(neighbour_labels, degree, current, random);
+                if (!is_most_frequent(neighbour_labels, degree, current))
+                    unstable++;
+                if (best_label != current) {
+                    labels.set(v, best_label);
+                    changed++;
+                }
+            }
+            Reporter.iteration("Label Propagation", iteration, changed, Double.NaN);
+            metrics.end(changed, Double.NaN);
+            if (unstable == 0)
+                break;
+            if (checkpoint != null && checkpoint.due(iteration))
+                checkpoint.save("LabelPropagation.propagate", fingerprint, iteration, labels, order);
+        }
+        if (checkpoint != null)
+            checkpoint.delete();
+        return labels;
+    }
+
+    /**
+     * Method that picks the new label of a node from the labels of its neighbours, used by the primitive versions of
+     * the algorithm. Same as label_shuffler: the most frequent label, a tie is broken at random.
+     *
+     * @param neighbour_labels = Labels of the neighbours in the first degree positions, they are sorted in place.
+     * @param degree = Number of neighbours.
+     * @param current = Current label of the node, kept when the node has no neighbours.
+     * @param random = Random generator of the tie breaks.
+     * @return The new label of the node.
+     */
+    static int most_frequent_label(int[] neighbour_labels, int degree, int current, Random random) {
+        // Sorted, the equal labels are next to each other and the most frequent is the longest run.
+        Arrays.sort(neighbour_labels, 0, degree);
+        int best_label = current;
+        int best_count = 0;
+        int ties = 0;
+        for (int run_start = 0; run_start < degree; ) {
+            int label = neighbour_labels[run_start];
+            int run_end = run_start;
+            while (run_end < degree && neighbour_labels[run_end] == label)
+                run_end++;
+            int count = run_end - run_start;
+            if (count > best_count) {
+                best_count = count;
+                best_label = label;
+                ties = 1;
+            } else if (count == best_count) {
+                ties++;
+                // Reservoir sampling, every tied label is kept with the same probability.
+                if (random.nextInt(ties) == 0)
+                    best_label = label;
+            }
+            run_start = run_end;
+        }
+        return best_label;
+    }
+
+    /**
+     * Method that checks STEP [5] of the pseudocode for one node: its label is one that the maximum number of its
+     * neighbours have. Used by the primitive versions of the algorithm to stop.
+     *
+     * @param sorted_labels = Labels of the neighbours, sorted (as left by most_frequent_label).
+     * @param degree = Number of neighbours.
+     * @param label = Label of the node.
+     */
+    static boolean is_most_frequent(int[] sorted_labels, int degree, int label) {
+        int best_count = 0;
+        int label_count = 0;
+        for (int run_start = 0; run_start < degree; ) {
+            int run_end = run_start;
+            while (run_end < degree && sorted_labels[run_end] == sorted_labels[run_start])
+                run_end++;
+            best_count = Math.max(best_count, run_end - run_start);
+            if (sorted_labels[run_start] == label)
+                label_count = run_end - run_start;
+            run_start = run_end;
+        }
+        return label_count == best_count;
+    }
+}
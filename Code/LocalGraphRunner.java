@@ -0,0 +1,143 @@
+import org.neo4j.driver.types.Node;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Class that runs the pipeline algorithms on a local GraphSource, without a neo4j server, and prints how long each
+ * stage took. Used to test and profile the algorithms on large graphs.
+ *
+ * Usage: java LocalGraphRunner <graph> <algorithm> [storage] [checkpoint]
+ *      graph = path of an edge list file (see EdgeListGraphSource), or one of
+ *              er:<nodes>:<average degree>
+ *              powerlaw:<nodes>:<average degree>:<exponent>
+ *              planted:<nodes>:<average degree>:<communities>:<mixing>
+ *      algorithm = pagerank or betweenness (run on CompactGraph), wcc, lpa, lpa-components, lpa-ensemble or louvain (run
+ *                  on the network of GraphDB),
+ *                  components or propagation (WCC and LPA run on a GraphStorage).
+ *      storage = where components and propagation keep the graph: heap (CompactGraph, the default), direct
+ *                (OffHeapGraph in direct memory) or the path of a file the OffHeapGraph is mapped to.
+ *      checkpoint = file where propagation saves its progress after every iteration, a stopped run started again with
+ *                   the same file and graph goes on from the last saved iteration (see Checkpoint).
+ */
+public class LocalGraphRunner {
+
+    private static final long SEED = 42;
+    // Maximum iterations of LabelPropagation.propagate.
+    private static final int LPA_ITERATIONS = 20;
+    // Runs of lpa-ensemble, and the fraction of them that must agree on a relation.
+    private static final int LPA_ENSEMBLE_RUNS = 8;
+    private static final double LPA_CONSENSUS_THRESHOLD = 0.75;
+    // How much of the results is written, the IDs of the nodes of every community are too much for large graphs.
+    private static final Reporter.Verbosity REPORT_VERBOSITY = Reporter.Verbosity.ITERATIONS;
+
+    public static void main(String... args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java LocalGraphRunner <edge list file | er:n:d | powerlaw:n:d:exponent | planted:n:d:communities:mixing> "
+                    + "<pagerank | betweenness | louvain | wcc | lpa | lpa-components | lpa-ensemble | components | propagation> [heap | direct | graph file] [checkpoint file]");
+            return;
+        }
+
+        Reporter.configure(REPORT_VERBOSITY, null);
+        long start = System.nanoTime();
+        GraphSource source = open(args[0]);
+        print_stage("Loading the graph", start);
+
+        String algorithm = args[1].toLowerCase();
+        if (algorithm.equals("pagerank") || algorithm.equals("betweenness")) {
+            start = System.nanoTime();
+            CompactGraph graph = source.compact();
+            print_stage("Building the CompactGraph (" + graph.nodeCount() + " nodes, " + graph.entryCount() / 2 + " relations)", start);
+
+            start = System.nanoTime();
+            if (algorithm.equals("pagerank"))
+                new PageRankCentrality(graph, PageRankCentrality.DEFAULT_DAMPING, PageRankCentrality.DEFAULT_TOLERANCE, PageRankCentrality.DEFAULT_MAX_ITER);
+            else
+                new BetweennessCentrality(graph, BetweennessCentrality.DEFAULT_PIVOTS, SEED);
+            print_stage(algorithm, start);
+            return;
+        }
+
+        if (algorithm.equals("components") || algorithm.equals("propagation")) {
+            String storage = args.length > 2 ? args[2] : "heap";
+            start = System.nanoTime();
+            GraphStorage graph = open_storage(source, storage);
+            print_stage("Building the " + storage + " graph (" + graph.nodeCount() + " nodes, " + graph.entryCount() / 2 + " relations)", start);
+
+            start = System.nanoTime();
+            if (algorithm.equals("components"))
+                WConnectedComponents.components(graph);
+            else
+                LabelPropagation.propagate(graph, LPA_ITERATIONS, SEED, args.length > 3 ? new Checkpoint(Paths.get(args[3]), 1, 0) : null);
+            print_stage(algorithm, start);
+            if (graph instanceof OffHeapGraph)
+                ((OffHeapGraph) graph).close();
+            return;
+        }
+
+        // The other algorithms work on the network of GraphDB, the same way Connector runs them.
+        start = System.nanoTime();
+        List<Node> nodes = source.nodes();
+        GraphDB graph_nodes = source.graphDB();
+        print_stage("Building GraphDB (" + nodes.size() + " nodes)", start);
+
+        start = System.nanoTime();
+        switch (algorithm) {
+            case "wcc":
+                new WConnectedComponents(nodes, graph_nodes.getNodeRelations());
+                break;
+            case "lpa":
+                new LabelPropagation(nodes, new java.util.HashMap<>(graph_nodes.getNodeRelations())).find_labelPropagation_communities();
+                break;
+            case "lpa-ensemble":
+                new EnsembleLabelPropagation(nodes, new java.util.HashMap<>(graph_nodes.getNodeRelations()), LPA_ENSEMBLE_RUNS,
+                        LPA_CONSENSUS_THRESHOLD, Runtime.getRuntime().availableProcessors(), SEED).find_labelPropagation_communities();
+                break;
+            case "lpa-components":
+                new ComponentLabelPropagation(nodes, new java.util.HashMap<>(graph_nodes.getNodeRelations()), Runtime.getRuntime().availableProcessors(), SEED)
+                        .find_labelPropagation_communities();
+                break;
+            case "louvain":
+                new Louvain(nodes, graph_nodes.getNodeRelations()).find_louvain_communities();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + args[1]);
+        }
+        print_stage(algorithm, start);
+    }
+
+    /**
+     * @return The GraphSource described by the argument.
+     */
+    static GraphSource open(String description) throws Exception {
+        String[] parts = description.split(":");
+        switch (parts[0]) {
+            case "er":
+                return SyntheticGraphSource.erdosRenyi(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), SEED);
+            case "powerlaw":
+                return SyntheticGraphSource.powerLaw(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), SEED);
+            case "planted":
+                return SyntheticGraphSource.plantedPartition(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]),
+                        Integer.parseInt(parts[3]), Double.parseDouble(parts[4]), SEED);
+            default:
+                return new EdgeListGraphSource(Paths.get(description));
+        }
+    }
+
+    /**
+     * @return The graph of the source kept in the given storage (heap, direct or a file path).
+     */
+    static GraphStorage open_storage(GraphSource source, String storage) throws Exception {
+        if (storage.equals("heap"))
+            return source.compact();
+        Path file = storage.equals("direct") ? null : Paths.get(storage);
+        if (source instanceof EdgeArrayGraphSource)
+            return ((EdgeArrayGraphSource) source).offHeap(file);
+        return OffHeapGraph.copyOf(source.compact(), file);
+    }
+
+    private static void print_stage(String stage, long start) {
+        Reporter.message(Reporter.Verbosity.SUMMARY, "[" + stage + "] took " + (System.nanoTime() - start) / 1e9 + " s");
+    }
+}
@@ -0,0 +1,449 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Class that implements the Louvain community detection algorithm (Blondel et al. 2008), the modularity based
+ * algorithm that the neo4j Graph Data Science library runs on the server.
+ *
+ * PSEUDO CODE
+ * 1. Every node starts in its own community.
+ * 2. Local moving: move every node to the neighbouring community that increases the modularity the most, repeat until
+ *    no node moves.
+ * 3. Aggregation: every community becomes one node of a new weighted graph. Relations between communities are summed
+ *    and the relations inside a community become a self-loop.
+ * 4. Repeat from (2) on the new graph until a level does not merge anything.
+ *
+ * Local moving is parallel: all the nodes compute their best community at the same time on the current state, then
+ * the moves are applied one by one and only if they still increase the modularity. So the modularity never decreases
+ * and the algorithm always stops.
+ * The weight of every community is kept in a primitive array indexed by the community ID.
+ *
+ * Like in Leiden, the final communities are split into their connected parts, because Louvain can produce a community
+ * whose nodes are only connected through nodes that later moved away.
+ */
+public class Louvain {
+
+    /**
+     * MAX_LEVELS = Maximum aggregation levels.
+     * MAX_PASSES = Maximum local moving passes on one level.
+     * MIN_GAIN = Modularity gain under which a move is not worth it (avoids moving back and forth on rounding).
+     */
+    protected final int MAX_LEVELS = 10;
+    protected final int MAX_PASSES = 20;
+    protected final double MIN_GAIN = 0.0000001;
+
+    protected final List<Node> all_nodes;
+    protected final Map<Node, Map<Node, Relationship>> nodeRelations;
+    protected Map<Integer, Set<Node>> final_results;
+
+    /**
+     * graph = Primitive graph of all the nodes that have at least one relation.
+     * membership = Final community of every dense node ID of graph.
+     * modularity = Modularity of the final communities.
+     */
+    private CompactGraph graph;
+    private int[] membership;
+    private double modularity;
+    // Where the membership is saved after every few levels, null to not save it.
+    private Checkpoint checkpoint;
+
+    /**
+     * Constructor of class Louvain Community Detector algorithm.
+     *
+     * @param all_nodes     = All the nodes involved in the graph.
+     * @param nodeRelations = All the connected nodes involved in the graph, together with their relationships.
+     */
+    public Louvain(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this.all_nodes = all_nodes;
+        this.nodeRelations = nodeRelations;
+    }
+
+    /**
+     * Method in charge and control of the levels of the algorithm.
+     */
+    protected void find_louvain_communities() {
+        // Nodes with no relations are never part of a community, same as removeSingleNodes in LabelPropagation.
+        List<Node> connected = new ArrayList<>();
+        for (Node node_data : all_nodes) {
+            Map<Node, Relationship> neighbours = nodeRelations.get(node_data);
+            if (neighbours != null && neighbours.size() > 0)
+                connected.add(node_data);
+        }
+        graph = CompactGraph.fromNodeRelations(connected, nodeRelations);
+
+        // Every original node follows its community through the levels.
+        membership = new int[graph.nodeCount()];
+        for (int v = 0; v < membership.length; v++)
+            membership[v] = v;
+
+        // A run stopped before goes on from the level after its last checkpoint. Aggregating the first graph by the
+        // saved membership gives the same graph as the levels that were done.
+        long fingerprint = checkpoint == null ? 0 : Checkpoint.fingerprint(graph);
+        Checkpoint.State state = checkpoint == null ? null : checkpoint.load("Louvain", fingerprint);
+        CompactGraph level_graph = graph;
+        int first_level = 1;
+        if (state != null) {
+            membership = state.getArrays()[0];
+            level_graph = aggregate(graph, membership, count_communities(membership));
+            first_level = state.getIteration() + 1;
+        }
+
+        for (int level = first_level; level <= MAX_LEVELS; level++) {
+            int[] community = local_moving(level_graph);
+            int community_count = renumber(community);
+
+            for (int v = 0; v < membership.length; v++)
+                membership[v] = community[membership[v]];
+            modularity = modularity(level_graph, community, community_count);
+            Reporter.message(Reporter.Verbosity.ITERATIONS, "[Louvain level " + level + "] communities = " + community_count + ", modularity = " + modularity);
+
+            // Nothing merged, the communities cannot get better.
+            if (community_count == level_graph.nodeCount())
+                break;
+            level_graph = aggregate(level_graph, community, community_count);
+            if (checkpoint != null && checkpoint.due(level))
+                checkpoint.save("Louvain", fingerprint, level, new IntArray.Heap(membership));
+        }
+        if (checkpoint != null)
+            checkpoint.delete();
+
+        split_disconnected();
+        modularity = modularity(graph, membership, count_communities(membership));
+        printCommunities();
+    }
+
+    /**
+     * STEP [2] of the pseudocode.
+     *
+     * @param g = The graph of the current level.
+     * @return The community of every node of g.
+     */
+    private int[] local_moving(CompactGraph g) {
+        final int n = g.nodeCount();
+        final int[] offsets = g.getOffsets();
+        final int[] targets = g.getTargets();
+        final double[] weights = g.getWeights();
+
+        final int[] community = new int[n];
+        // Strength of every node and total strength of every community.
+        final double[] strength = new double[n];
+        final double[] community_total = new double[n];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            community[v] = v;
+            strength[v] = g.strength(v);
+            community_total[v] = strength[v];
+        });
+        double total = 0;
+        for (int v = 0; v < n; v++)
+            total += strength[v];
+        if (total == 0)
+            return community;
+        final double m2 = total;
+
+        // Scratch arrays of each thread: weight from the node to each community, and which entries were touched.
+        ThreadLocal<double[]> scratch_weights = ThreadLocal.withInitial(() -> new double[n]);
+        ThreadLocal<int[]> scratch_touched = ThreadLocal.withInitial(() -> new int[n]);
+        final int[] proposal = new int[n];
+
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            // Parallel phase: every node proposes its best community, nothing is written except its own proposal.
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double[] to_community = scratch_weights.get();
+                int[] touched = scratch_touched.get();
+                int touched_count = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = targets[i];
+                    if (u == v)
+                        continue;
+                    int c = community[u];
+                    if (to_community[c] == 0)
+                        touched[touched_count++] = c;
+                    to_community[c] += weights == null ? 1 : weights[i];
+                }
+
+                int own = community[v];
+                double k = strength[v];
+                // Gain of staying, computed as if v was removed from its community first.
+                double best_gain = to_community[own] - (community_total[own] - k) * k / m2;
+                int best = own;
+                for (int t = 0; t < touched_count; t++) {
+                    int c = touched[t];
+                    if (c != own) {
+                        double gain = to_community[c] - community_total[c] * k / m2;
+                        if (gain > best_gain + MIN_GAIN) {
+                            best_gain = gain;
+                            best = c;
+                        }
+                    }
+                    to_community[c] = 0;
+                }
+                proposal[v] = best;
+            });
+
+            // Sequential phase: apply the proposals that still increase the modularity.
+            int moves = 0;
+            for (int v = 0; v < n; v++) {
+                int own = community[v];
+                int target = proposal[v];
+                if (target == own)
+                    continue;
+                double to_own = 0;
+                double to_target = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = targets[i];
+                    if (u == v)
+                        continue;
+                    double w = weights == null ? 1 : weights[i];
+                    if (community[u] == own)
+                        to_own += w;
+                    else if (community[u] == target)
+                        to_target += w;
+                }
+                double k = strength[v];
+                double stay = to_own - (community_total[own] - k) * k / m2;
+                double move = to_target - community_total[target] * k / m2;
+                if (move > stay + MIN_GAIN) {
+                    community_total[own] -= k;
+                    community_total[target] += k;
+                    community[v] = target;
+                    moves++;
+                }
+            }
+            if (moves == 0)
+                break;
+        }
+        return community;
+    }
+
+    /**
+     * STEP [3] of the pseudocode. Every community becomes a node, the weight between two communities is the sum of
+     * the weights of the relations between their nodes.
+     */
+    private CompactGraph aggregate(CompactGraph g, int[] community, int community_count) {
+        int n = g.nodeCount();
+        int[] offsets = g.getOffsets();
+        int[] targets = g.getTargets();
+        double[] weights = g.getWeights();
+
+        // Nodes grouped by community (counting sort).
+        int[] start = new int[community_count + 1];
+        for (int v = 0; v < n; v++)
+            start[community[v] + 1]++;
+        for (int c = 0; c < community_count; c++)
+            start[c + 1] += start[c];
+        int[] members = new int[n];
+        int[] position = Arrays.copyOf(start, community_count);
+        for (int v = 0; v < n; v++)
+            members[position[community[v]]++] = v;
+
+        int[] new_offsets = new int[community_count + 1];
+        int[] new_targets = new int[targets.length];
+        double[] new_weights = new double[targets.length];
+        double[] to_community = new double[community_count];
+        int[] touched = new int[community_count];
+        int entries = 0;
+        for (int c = 0; c < community_count; c++) {
+            int touched_count = 0;
+            for (int m = start[c]; m < start[c + 1]; m++) {
+                int v = members[m];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int d = community[targets[i]];
+                    if (to_community[d] == 0)
+                        touched[touched_count++] = d;
+                    to_community[d] += weights == null ? 1 : weights[i];
+                }
+            }
+            for (int t = 0; t < touched_count; t++) {
+                new_targets[entries] = touched[t];
+                new_weights[entries] = to_community[touched[t]];
+                entries++;
+                to_community[touched[t]] = 0;
+            }
+            new_offsets[c + 1] = entries;
+        }
+        return new CompactGraph(new_offsets, Arrays.copyOf(new_targets, entries), Arrays.copyOf(new_weights, entries), null);
+    }
+
+    /**
+     * Method that gives the communities the IDs 0 ... (count - 1).
+     *
+     * @return Number of communities.
+     */
+    private int renumber(int[] community) {
+        int[] new_id = new int[community.length];
+        Arrays.fill(new_id, -1);
+        int count = 0;
+        for (int v = 0; v < community.length; v++) {
+            if (new_id[community[v]] < 0)
+                new_id[community[v]] = count++;
+            community[v] = new_id[community[v]];
+        }
+        return count;
+    }
+
+    private int count_communities(int[] community) {
+        int max = -1;
+        for (int c : community)
+            max = Math.max(max, c);
+        return max + 1;
+    }
+
+    /**
+     * Modularity Q = SUM[c] ( internal(c) / 2m - (total(c) / 2m)^2 ).
+     */
+    private double modularity(CompactGraph g, int[] community, int community_count) {
+        int[] offsets = g.getOffsets();
+        int[] targets = g.getTargets();
+        double[] weights = g.getWeights();
+        double[] internal = new double[community_count];
+        double[] total = new double[community_count];
+        double m2 = 0;
+        for (int v = 0; v < g.nodeCount(); v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                double w = weights == null ? 1 : weights[i];
+                total[community[v]] += w;
+                m2 += w;
+                if (community[targets[i]] == community[v])
+                    internal[community[v]] += w;
+            }
+        }
+        if (m2 == 0)
+            return 0;
+        double q = 0;
+        for (int c = 0; c < community_count; c++)
+            q += internal[c] / m2 - (total[c] / m2) * (total[c] / m2);
+        return q;
+    }
+
+    /**
+     * Method that splits every community into its connected parts on the original graph, with a breadth first search
+     * that only follows relations inside the same community.
+     */
+    private void split_disconnected() {
+        int n = graph.nodeCount();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] split = new int[n];
+        Arrays.fill(split, -1);
+        int[] queue = new int[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (split[s] >= 0)
+                continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s;
+            split[s] = count;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = targets[i];
+                    if (split[u] < 0 && membership[u] == membership[v]) {
+                        split[u] = count;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            count++;
+        }
+        membership = split;
+    }
+
+    /**
+     * Method that builds the final communities and prints them together with their centrality, in the same way
+     * LabelPropagation prints its communities.
+     */
+    protected void printCommunities() {
+        final_results = new HashMap<>();
+        for (int v = 0; v < membership.length; v++) {
+            // Community labels start from 1 like in the other algorithms.
+            Set<Node> community = final_results.get(membership[v] + 1);
+            if (community == null) {
+                community = new HashSet<>();
+                final_results.put(membership[v] + 1, community);
+            }
+            community.add(graph.node(v));
+        }
+        // Communities of a single node are not communities.
+        final_results.values().removeIf(community -> community.size() < 2);
+
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Modularity of the communities is : " + modularity);
+        int counter = 1;
+        for (Integer label : final_results.keySet()) {
+            Set<Node> node_in_community = final_results.get(label);
+            Reporter.community(counter, label, node_in_community);
+            counter++;
+
+            // Network of the community with only the relations inside the community.
+            Map<Node, Map<Node, Relationship>> correct_network = new HashMap<>();
+            for (Node node_one : node_in_community) {
+                Map<Node, Relationship> neighbour = new HashMap<>();
+                for (Map.Entry<Node, Relationship> relation : nodeRelations.get(node_one).entrySet()) {
+                    if (node_in_community.contains(relation.getKey()))
+                        neighbour.put(relation.getKey(), relation.getValue());
+                }
+                correct_network.put(node_one, neighbour);
+            }
+            ArrayList<Node> all_nodes_unique = new ArrayList<>(node_in_community);
+            try (PipelineMetrics.Stage stage = PipelineMetrics.stage("centrality")) {
+                new DegreeCentrality(all_nodes_unique, correct_network);
+                new PageRankCentrality(all_nodes_unique, correct_network);
+                new BetweennessCentrality(all_nodes_unique, correct_network);
+                stage.items(all_nodes_unique.size());
+            }
+        }
+    }
+
+    /**
+     * Getter method for the main Map that holds final results.
+     */
+    protected Map<Integer, Set<Node>> getFinal_results() {
+        return this.final_results;
+    }
+
+    /**
+     * @param checkpoint = Where the membership is saved after every few levels and resumed from, null to not save it.
+     */
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public double getModularity() {
+        return modularity;
+    }
+
+    /**
+     * Method that gives the final communities in primitive arrays, built from membership without going through the
+     * Sets of final_results. Communities of a single node are left out, the same as in final_results.
+     *
+     * @return The result over the graph of the nodes that have relations.
+     */
+    public CommunityResult getResult() {
+        int[] size = new int[membership.length];
+        for (int c : membership)
+            size[c]++;
+        int[] index = new int[membership.length];
+        int count = 0;
+        for (int c = 0; c < size.length; c++)
+            index[c] = size[c] > 1 ? count++ : -1;
+
+        int[] labels = new int[count];
+        for (int c = 0; c < size.length; c++) {
+            if (index[c] >= 0)
+                labels[index[c]] = c + 1;
+        }
+        int[] community = new int[membership.length];
+        for (int v = 0; v < membership.length; v++)
+            community[v] = index[membership[v]];
+        return new CommunityResult(graph, community, labels);
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * GraphSource that streams the relations of a filtering query from the neo4j server into the edge arrays of
+ * EdgeArrayGraphSource, for graphs too large for GraphDB (main_query_any on the whole knowledge graph).
+ *
+ * The filtering query is wrapped in a CALL subquery that only returns the IDs of the two nodes and the type of every
+ * relation, so no property is sent, and the records are read one at a time as the driver receives them: no list of
+ * records and no Map of the network is built. What is kept is 10 bytes per relation plus the dense ID of every node,
+ * and offHeap() turns it into an OffHeapGraph for WConnectedComponents.components and LabelPropagation.propagate,
+ * after which this source can be dropped.
+ *
+ * Nodes without any relation of the query are not in the graph. nodes() and graphDB() only know the IDs and types
+ * (see EdgeArrayGraphSource), not the labels and properties of the server.
+ */
+public class Neo4jEdgeGraphSource extends EdgeArrayGraphSource {
+
+    /**
+     * Constructor of the class, the relations are streamed here.
+     *
+     * @param connector = Open connection to the server.
+     * @param relation_query = Query returning every relation as "n", "r", "m" (for example main_query_any).
+     */
+    public Neo4jEdgeGraphSource(Connector connector, String relation_query) {
+        String edges = "CALL { " + relation_query + " } RETURN id(n) AS source, id(m) AS destination, type(r) AS type";
+        connector.streamQuery(edges, record -> add_edge(dense_id(record.get("source").asLong()),
+                dense_id(record.get("destination").asLong()), RelationshipTypes.code(record.get("type").asString())));
+        finish_dense_ids();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.types.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * GraphSource that reads the graph from the neo4j server through Connector, with a pair of the filtering queries
+ * (for example sub_query_relation and main_query_relation). The results are read once and kept, so calling nodes()
+ * or relations() again does not query the server again. graphDB() and compact() are built from relations().
+ *
+ * start() sends both queries at once, each on its own session and I/O thread (see IoThreads), so the server answers
+ * them at the same time and nodes() and relations() only wait for the results.
+ *
+ * streamRelations() gives the relations one record at a time without keeping them, for GraphDB.add_relation, so the
+ * driver Relationships with their properties are never all on the heap. startNodes() then only sends the node query
+ * in the background, it runs while the relations are streamed.
+ */
+public class Neo4jGraphSource implements GraphSource {
+
+    private final Connector connector;
+    private final String node_query;
+    private final String relation_query;
+    private List<Node> nodes;
+    private List<Record> relations;
+    private CompletableFuture<List<Record>> node_reading;
+    private CompletableFuture<List<Record>> relation_reading;
+
+    /**
+     * Constructor of the class.
+     * @param connector = Open connection to the server.
+     * @param node_query = Query returning every node involved as "n".
+     * @param relation_query = Query returning every relation as "n", "r", "m".
+     */
+    public Neo4jGraphSource(Connector connector, String node_query, String relation_query) {
+        this.connector = connector;
+        this.node_query = node_query;
+        this.relation_query = relation_query;
+    }
+
+    /**
+     * Method that sends the node and relation queries in the background, both at the same time.
+     * @return This source.
+     */
+    public Neo4jGraphSource start() {
+        if (nodes == null && node_reading == null)
+            node_reading = IoThreads.supplyAsync("neo4j-node-query", () -> connector.executeSimpleQuery(node_query));
+        if (relations == null && relation_reading == null)
+            relation_reading = IoThreads.supplyAsync("neo4j-relation-query", () -> connector.executeSimpleQuery(relation_query));
+        return this;
+    }
+
+    /**
+     * Method that sends only the node query in the background, for a caller that streams the relations.
+     * @return This source.
+     */
+    public Neo4jGraphSource startNodes() {
+        if (nodes == null && node_reading == null)
+            node_reading = IoThreads.supplyAsync("neo4j-node-query", () -> connector.executeSimpleQuery(node_query));
+        return this;
+    }
+
+    /**
+     * Method that runs the relation query and gives its records one at a time, they are not kept.
+     * @param consumer = Called with every relation record, in order.
+     * @return Number of relation records.
+     */
+    public long streamRelations(Consumer<Record> consumer) {
+        long[] count = new long[1];
+        connector.streamQuery(relation_query, record -> {
+            consumer.accept(record);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    @Override
+    public List<Node> nodes() {
+        if (nodes == null) {
+            List<Record> records = node_reading == null ? connector.executeSimpleQuery(node_query) : await(node_reading);
+            nodes = new ArrayList<>(records.size());
+            for (Record record : records)
+                nodes.add(record.get("n").asNode());
+        }
+        return nodes;
+    }
+
+    @Override
+    public GraphDB graphDB() {
+        GraphDB graph = new GraphDB();
+        for (Node node : nodes())
+            graph.add_node(node);
+        graph.init_Graph(relations());
+        return graph;
+    }
+
+    @Override
+    public CompactGraph compact() {
+        return CompactGraph.fromRelations(nodes(), relations());
+    }
+
+    /**
+     * @return One record per relation, with keys "n", "r" and "m" for NodeA-Relation-NodeB (like main_query_*).
+     */
+    public List<Record> relations() {
+        if (relations == null)
+            relations = relation_reading == null ? connector.executeSimpleQuery(relation_query) : await(relation_reading);
+        return relations;
+    }
+
+    /**
+     * @return The records of a query started by start(), with the exception of the query if it failed.
+     */
+    private static List<Record> await(CompletableFuture<List<Record>> reading) {
+        try {
+            return reading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+}
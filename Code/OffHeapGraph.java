@@ -0,0 +1,260 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing NIO and Collection data structures packages.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Primitive undirected graph kept outside of the JVM heap, for graphs whose adjacency does not fit next to the
+ * driver's buffers. Same layout as CompactGraph (offsets + targets, every relation in both directions) behind the
+ * same GraphStorage read API, so WConnectedComponents.components and LabelPropagation.propagate run on both.
+ *
+ * The arrays live either in direct ByteBuffers (file = null) or in a memory-mapped file, in which case the operating
+ * system pages them in and out and the graph can be larger than the physical memory. ByteBuffers hold at most 2GB, so
+ * every array is split in segments of 1GB. Offsets are longs, so the adjacency can have more than 2^31 entries.
+ * The per node arrays of the algorithms (newIntArray) are also direct ByteBuffers.
+ *
+ * The heap only holds the ByteBuffer objects, a few hundred bytes whatever the size of the graph, so the garbage
+ * collector never has to scan or copy the graph. Direct memory is given back when the graph is garbage collected
+ * (raise -XX:MaxDirectMemorySize for big graphs), a mapped file is deleted by close() when it was created for
+ * the graph.
+ */
+public class OffHeapGraph implements GraphStorage, AutoCloseable {
+
+    // Every segment holds 2^30 bytes, a multiple of 8 so no long crosses two segments.
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final int node_count;
+    private final Segments offsets;
+    private final Segments targets;
+    private final Path file;
+
+    private OffHeapGraph(int node_count, long entry_count, Path file) throws IOException {
+        this.node_count = node_count;
+        this.file = file;
+        long offsets_bytes = 8L * (node_count + 1);
+        if (file == null) {
+            this.offsets = new Segments(offsets_bytes, null, 0);
+            this.targets = new Segments(4L * entry_count, null, 0);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                // Targets start on a segment boundary of their own, so both arrays are mapped the same way.
+                long targets_position = (offsets_bytes + SEGMENT_MASK) & ~SEGMENT_MASK;
+                this.offsets = new Segments(offsets_bytes, channel, 0);
+                this.targets = new Segments(4L * entry_count, channel, targets_position);
+            }
+        }
+    }
+
+    /**
+     * Method that builds the off-heap graph from a list of edges. Each edge is added in both directions, and like
+     * CompactGraph.fromEdges two nodes are neighbours once and a self-loop is one entry. No array of the size of the
+     * graph is created on the heap, only one of the largest degree.
+     *
+     * @param node_count = Number of nodes, the edges use IDs from 0 to (node_count - 1).
+     * @param sources = First node of every edge.
+     * @param destinations = Second node of every edge.
+     * @param edge_count = Number of edges to read from the two arrays.
+     * @param file = File the graph is mapped to, null to keep it in direct memory.
+     * @return The off-heap undirected graph.
+     * @throws IOException when the file cannot be created or mapped.
+     */
+    public static OffHeapGraph fromEdges(int node_count, int[] sources, int[] destinations, int edge_count, Path file) throws IOException {
+        OffHeapGraph graph = new OffHeapGraph(node_count, 2L * edge_count, file);
+        Segments offsets = graph.offsets;
+
+        // offsets[v] first counts the entries of v, then becomes the end of v, and is moved back while the entries are
+        // written, so it ends at the start of v. This needs no second array of node_count positions.
+        for (int e = 0; e < edge_count; e++) {
+            offsets.putLong(sources[e], offsets.getLong(sources[e]) + 1);
+            offsets.putLong(destinations[e], offsets.getLong(destinations[e]) + 1);
+        }
+        long total = 0;
+        for (int v = 0; v < node_count; v++) {
+            total += offsets.getLong(v);
+            offsets.putLong(v, total);
+        }
+        offsets.putLong(node_count, total);
+        for (int e = 0; e < edge_count; e++) {
+            graph.targets.putInt(graph.previous_position(sources[e]), destinations[e]);
+            graph.targets.putInt(graph.previous_position(destinations[e]), sources[e]);
+        }
+        graph.remove_repeated_neighbours();
+        return graph;
+    }
+
+    /**
+     * Method that sorts every neighbour list and keeps each neighbour once, moving the lists to the front of the
+     * targets. The end of the targets is left unused.
+     */
+    private void remove_repeated_neighbours() {
+        int[] neighbours = new int[16];
+        long kept = 0;
+        long start = 0;
+        for (int v = 0; v < node_count; v++) {
+            long end = offsets.getLong(v + 1);
+            int degree = (int) (end - start);
+            if (degree > neighbours.length)
+                neighbours = new int[Math.max(degree, 2 * neighbours.length)];
+            for (int i = 0; i < degree; i++)
+                neighbours[i] = targets.getInt(start + i);
+            Arrays.sort(neighbours, 0, degree);
+            offsets.putLong(v, kept);
+            for (int i = 0; i < degree; i++) {
+                if (i == 0 || neighbours[i] != neighbours[i - 1])
+                    targets.putInt(kept++, neighbours[i]);
+            }
+            start = end;
+        }
+        offsets.putLong(node_count, kept);
+    }
+
+    /**
+     * Method that copies any graph off-heap, for example the CompactGraph of the records read from neo4j, so the
+     * on-heap copy can be dropped before the algorithms run.
+     *
+     * @param graph = The graph to copy.
+     * @param file = File the graph is mapped to, null to keep it in direct memory.
+     * @return The off-heap copy.
+     * @throws IOException when the file cannot be created or mapped.
+     */
+    public static OffHeapGraph copyOf(GraphStorage graph, Path file) throws IOException {
+        OffHeapGraph copy = new OffHeapGraph(graph.nodeCount(), graph.entryCount(), file);
+        for (int v = 0; v <= graph.nodeCount(); v++)
+            copy.offsets.putLong(v, graph.offset(v));
+        for (long i = 0; i < graph.entryCount(); i++)
+            copy.targets.putInt(i, graph.target(i));
+        return copy;
+    }
+
+    private long previous_position(int v) {
+        long position = offsets.getLong(v) - 1;
+        offsets.putLong(v, position);
+        return position;
+    }
+
+    @Override
+    public int nodeCount() {
+        return node_count;
+    }
+
+    @Override
+    public long entryCount() {
+        return offsets.getLong(node_count);
+    }
+
+    @Override
+    public long offset(int v) {
+        return offsets.getLong(v);
+    }
+
+    @Override
+    public int target(long position) {
+        return targets.getInt(position);
+    }
+
+    @Override
+    public IntArray newIntArray(int size) {
+        return new OffHeapIntArray(size);
+    }
+
+    /**
+     * Deletes the mapped file. The mappings stay readable until they are garbage collected, but the graph should not
+     * be used anymore.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null)
+            Files.deleteIfExists(file);
+    }
+
+    /**
+     * IntArray in direct memory.
+     */
+    private static final class OffHeapIntArray implements IntArray {
+        private final int size;
+        private final Segments values;
+
+        private OffHeapIntArray(int size) {
+            this.size = size;
+            this.values = new Segments(4L * size, null, 0);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int get(int index) {
+            return values.getInt(index);
+        }
+
+        @Override
+        public void set(int index, int value) {
+            values.putInt(index, value);
+        }
+    }
+
+    /**
+     * An array of ints or longs split over 1GB ByteBuffers, indexed by element (not by byte).
+     */
+    private static final class Segments {
+        private final ByteBuffer[] buffers;
+
+        /**
+         * @param bytes = Size of the array in bytes.
+         * @param channel = File to map the array to, null for direct memory.
+         * @param position = Position of the array in the file.
+         */
+        private Segments(long bytes, FileChannel channel, long position) {
+            int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            buffers = new ByteBuffer[Math.max(count, 1)];
+            for (int s = 0; s < buffers.length; s++) {
+                int size = (int) Math.min(1L << SEGMENT_SHIFT, bytes - ((long) s << SEGMENT_SHIFT));
+                ByteBuffer buffer;
+                if (channel == null) {
+                    buffer = ByteBuffer.allocateDirect(Math.max(size, 0));
+                } else {
+                    try {
+                        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position + ((long) s << SEGMENT_SHIFT), Math.max(size, 0));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Cannot map segment " + s + " of the graph file", e);
+                    }
+                }
+                buffers[s] = buffer.order(ByteOrder.nativeOrder());
+            }
+        }
+
+        int getInt(long index) {
+            long byte_index = index << 2;
+            return buffers[(int) (byte_index >>> SEGMENT_SHIFT)].getInt((int) (byte_index & SEGMENT_MASK));
+        }
+
+        void putInt(long index, int value) {
+            long byte_index = index << 2;
+            buffers[(int) (byte_index >>> SEGMENT_SHIFT)].putInt((int) (byte_index & SEGMENT_MASK), value);
+        }
+
+        long getLong(long index) {
+            long byte_index = index << 3;
+            return buffers[(int) (byte_index >>> SEGMENT_SHIFT)].getLong((int) (byte_index & SEGMENT_MASK));
+        }
+
+        void putLong(long index, long value) {
+            long byte_index = index << 3;
+            buffers[(int) (byte_index >>> SEGMENT_SHIFT)].putLong((int) (byte_index & SEGMENT_MASK), value);
+        }
+    }
+}
@@ -1,10 +1,7 @@
-import org.neo4j.driver.Record;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class OnlyBias extends LabelPropagation {
     /**
@@ -14,9 +11,11 @@ public class OnlyBias extends LabelPropagation {
      * @param nodeRelations = All the connected nodes involved in the graph, together with their relationships and
      */
 
-    Set<Node> bias_node;
+    BiasSet bias_node;
+    // Biased nodes that are still in the network once the single nodes are removed.
+    List<Node> bias_order;
 
-    public OnlyBias(List<Record> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, Set<Node> bias_node) {
+    public OnlyBias(List<Node> all_nodes, Map<Node, Map<Node, Relationship>> nodeRelations, BiasSet bias_node) {
         super(all_nodes, nodeRelations);
         this.bias_node = bias_node;
     }
@@ -28,13 +27,25 @@ public class OnlyBias extends LabelPropagation {
          * They also offer information in structure, however the time-complexity increases a lot.
          */
         removeSingleNodes();
+        this.bias_order = new ArrayList<>();
+        for (Node node : this.bias_node.nodes()) {
+            if (this.mapBeingModified.containsKey(node))
+                this.bias_order.add(node);
+        }
+        // A run stopped before goes on from its last checkpoint.
+        long fingerprint = checkpoint == null ? 0 : Checkpoint.fingerprint(this.all_nodes, this.nodeRelations);
+        int counter = resume_checkpoint(fingerprint);
+        init_modularity();
         /**
          * Using DO-WHILE because code will always run at least once and match labels.
          * So we shuffle the keys at least one, we need to shuffle keys in every iteration.
          */
-        int counter = 0;
         boolean max_nei = false;
+        double previous_modularity;
         do {
+            previous_modularity = this.modularity;
+            PipelineMetrics.Iteration iteration = PipelineMetrics.iteration(getClass().getSimpleName(), counter + 1);
+            this.changed_labels = 0;
             // STEP [3] of the pseudocode is to shuffle the keys and take them to random order.
             this.network_keys = shuffle_nodes();
 
@@ -45,18 +56,14 @@ public class OnlyBias extends LabelPropagation {
             // Save the version before altering
             saveVersion();
 
-            try {
-                // Go thourgh biased nodes first
-                for (Node node : this.bias_node) {
-                    detector(node);
-                }
-
-                // Remove biased nodes.
-                this.network_keys.removeIf(node -> bias_node.contains(node));
-            } catch (Exception e) {
-                //do nothing.
+            // Go thourgh biased nodes first
+            for (Node node : this.bias_order) {
+                detector(node);
             }
 
+            // Remove biased nodes, one bit test per node.
+            this.network_keys.removeIf(node -> bias_node.contains(node));
+
             // Go thourgh the other nodes.
             for (Node node : this.network_keys) {
                 detector(node);
@@ -74,41 +81,45 @@ public class OnlyBias extends LabelPropagation {
              * It should satisfy for all the nodes!!!
              */
             max_nei = checkNeighboursLabel();
-            System.out.println("Does node have labels of maximum neighbour? : " + max_nei);
+            Reporter.iteration(getClass().getSimpleName(), counter + 1, this.changed_labels, this.modularity);
+            Reporter.message(Reporter.Verbosity.ITERATIONS, "Does node have labels of maximum neighbour? : " + max_nei);
+            iteration.end(this.changed_labels, this.modularity);
 
 
             counter = counter + 1;
+            save_checkpoint(fingerprint, counter);
 
             // Default maxIteration in neo4j manual is 10. [need some working here] && (counter < MAX_ITER)
-        } while (labels_changed && !max_nei && MAX_ITER > counter);
+        } while (labels_changed && !max_nei && MAX_ITER > counter && !modularity_converged(previous_modularity));
+        if (checkpoint != null)
+            checkpoint.delete();
 
         printCommunities();
     }
 
     @Override
     protected void removeSingleNodes() {
-        for (Record node : this.all_nodes) {
-            Node node_data = node.get("n").asNode();
+        // Labels of the biased nodes, so every node is compared with each kind of biased node once.
+        Set<Iterable<String>> biased_labels = new HashSet<>();
+        for (Node biased_node : bias_node.nodes())
+            biased_labels.add(biased_node.labels());
+
+        for (Node node_data : this.all_nodes) {
 
             // Only Datapoint and Ratios can be biased, so we need to check
             // If the node is of type Datapoint and ratio.
-            for (Node biased_node : bias_node) {
-                if (node_data.labels().equals(biased_node.labels())) {
-                    if (bias_node.contains(node_data)) {
-                        Map<Node, Relationship> node_relations = this.mapBeingModified.get(node_data);
-
-                        // If node does not have any neighbours, remove the record from network.
-                        if (node_relations.size() < 1) {
-                            this.mapBeingModified.remove(node_data);
-                        }
-                    } else {
+            if (biased_labels.contains(node_data.labels())) {
+                if (bias_node.contains(node_data)) {
+                    Map<Node, Relationship> node_relations = this.mapBeingModified.get(node_data);
+
+                    // If node does not have any neighbours, remove the record from network.
+                    if (node_relations.size() < 1) {
                         this.mapBeingModified.remove(node_data);
                     }
+                } else {
+                    this.mapBeingModified.remove(node_data);
                 }
-
             }
-
-
         }
     }
 }
@@ -0,0 +1,203 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Class that implements the PageRank Centrality algorithm, either on the whole graph or on each cluster that a
+ * Community Detection algorithm identifies.
+ * Degree Centrality only counts the relations of a node, so hub nodes (for example Areas) always come on top.
+ * PageRank also considers how important the neighbours are, a node is important when important nodes point to it.
+ *
+ * The scores are computed with the power iteration over the primitive CompactGraph:
+ *      PR(v) = (1 - d) / N + d * ( SUM[u neighbour of v] PR(u) / degree(u) + dangling / N )
+ * Every node is computed in parallel, because each node only reads the scores of the previous iteration.
+ * The iteration stops when the total change of the scores is smaller than the tolerance or the maximum iterations
+ * have been reached.
+ */
+public class PageRankCentrality {
+
+    /**
+     * Default values are the same as the neo4j Graph Data Science PageRank.
+     */
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 0.0000001;
+    public static final int DEFAULT_MAX_ITER = 20;
+
+    private final CompactGraph graph;
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final boolean report_iterations;
+
+    /**
+     * scores = PageRank score of each dense node ID.
+     * iterations = Number of iterations until the scores converged.
+     * last_delta = Total change of the scores in the last iteration.
+     */
+    private double[] scores;
+    private int iterations;
+    private double last_delta;
+
+    /**
+     * Constructor used for each community, the same way DegreeCentrality is called. Uses the default parameters and
+     * prints the most popular nodes of the community.
+     *
+     * @param community = The nodes of the community.
+     * @param nodeRelations = The network that holds all the nodes and their relations.
+     */
+    public PageRankCentrality(ArrayList<Node> community, Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this(CompactGraph.fromNodeRelations(community, nodeRelations), DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITER);
+        print_centrality_powers();
+    }
+
+    /**
+     * Constructor used for the full graph. Uses the default parameters and prints the most popular nodes of the graph.
+     *
+     * @param nodeRelations = The network that holds all the nodes and their relations.
+     */
+    public PageRankCentrality(Map<Node, Map<Node, Relationship>> nodeRelations) {
+        this(new ArrayList<>(nodeRelations.keySet()), nodeRelations);
+    }
+
+    /**
+     * Constructor that computes the scores with chosen parameters.
+     *
+     * @param graph = The primitive graph to rank.
+     * @param damping = Probability of following a relation instead of jumping to a random node (between 0 and 1).
+     * @param tolerance = Total change of the scores under which we stop iterating.
+     * @param maxIterations = Maximum number of iterations.
+     */
+    public PageRankCentrality(CompactGraph graph, double damping, double tolerance, int maxIterations) {
+        this(graph, damping, tolerance, maxIterations, true);
+    }
+
+    /**
+     * Same as above, report_iterations = false keeps the console quiet (used by the benchmarks).
+     */
+    public PageRankCentrality(CompactGraph graph, double damping, double tolerance, int maxIterations, boolean report_iterations) {
+        if (damping < 0 || damping >= 1)
+            throw new IllegalArgumentException("Damping factor must be in [0, 1) but was " + damping);
+        if (tolerance < 0)
+            throw new IllegalArgumentException("Tolerance must not be negative but was " + tolerance);
+        this.graph = graph;
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.report_iterations = report_iterations;
+
+        calculate_centrality();
+    }
+
+    /**
+     * Code snippet where the power iteration is computed.
+     */
+    private void calculate_centrality() {
+        int node_count = graph.nodeCount();
+        scores = new double[node_count];
+        iterations = 0;
+        last_delta = 0;
+        if (node_count == 0)
+            return;
+
+        final int[] offsets = graph.getOffsets();
+        final int[] targets = graph.getTargets();
+        final double[] weights = graph.getWeights();
+
+        // Strength of every node, so we do not compute it again in every iteration.
+        final double[] strength = new double[node_count];
+        IntStream.range(0, node_count).parallel().forEach(v -> strength[v] = graph.strength(v));
+
+        Arrays.fill(scores, 1.0 / node_count);
+        double[] next = new double[node_count];
+        double[] contribution = new double[node_count];
+        final double teleport = (1 - damping) / node_count;
+
+        do {
+            final double[] current = scores;
+            // What every node sends to each of its neighbours.
+            IntStream.range(0, node_count).parallel().forEach(u ->
+                    contribution[u] = strength[u] > 0 ? current[u] / strength[u] : 0);
+            // Nodes with no relations give their score to every node equally.
+            double dangling = IntStream.range(0, node_count).parallel()
+                    .filter(u -> strength[u] == 0).mapToDouble(u -> current[u]).sum();
+            final double base = teleport + damping * dangling / node_count;
+
+            final double[] updated = next;
+            IntStream.range(0, node_count).parallel().forEach(v -> {
+                double sum = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++)
+                    sum += weights == null ? contribution[targets[i]] : contribution[targets[i]] * weights[i];
+                updated[v] = base + damping * sum;
+            });
+
+            last_delta = IntStream.range(0, node_count).parallel()
+                    .mapToDouble(v -> Math.abs(updated[v] - current[v])).sum();
+            iterations++;
+
+            // Swapping the arrays, so the new scores become the current ones.
+            next = scores;
+            scores = updated;
+
+            if (report_iterations)
+                Reporter.message(Reporter.Verbosity.ITERATIONS, "[PageRank iteration " + iterations + "] total change of scores = " + last_delta);
+        } while (last_delta > tolerance && iterations < maxIterations);
+    }
+
+    /**
+     * Method that prints the 5 nodes with the highest score, in the same format as DegreeCentrality.
+     */
+    private void print_centrality_powers() {
+        int count = 0;
+        for (int v : top(5)) {
+            count++;
+            Node node = graph.node(v);
+            Reporter.central_node(count, "PageRank", node, "has PageRank score", scores[v], null);
+        }
+    }
+
+    /**
+     * @param k = Number of nodes wanted.
+     * @return The dense IDs of the k nodes with the highest scores, highest first.
+     */
+    public int[] top(int k) {
+        k = Math.min(k, scores.length);
+        // Min-heap of size k so we do not sort the whole graph.
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int v = 0; v < scores.length; v++) {
+            heap.add(v);
+            if (heap.size() > k)
+                heap.poll();
+        }
+        int[] best = new int[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--)
+            best[i] = heap.poll();
+        return best;
+    }
+
+    /**
+     * Getter for the score of each dense node ID of the graph.
+     */
+    public double[] getScores() {
+        return scores;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public boolean hasConverged() {
+        return last_delta <= tolerance;
+    }
+}
@@ -0,0 +1,333 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+
+import java.util.*;
+
+/**
+ * Class that gives a suspicion score to the nodes around the biased nodes (the ones flagged by the ML procedures, see
+ * BiasSet), with Personalized PageRank: PageRank where the random jumps always go back to the biased nodes, so a node
+ * scores high when many short paths lead to it from them.
+ *
+ * The scores are approximated with forward push (Andersen, Chung and Lang 2006) instead of power iterations over the
+ * whole graph. Every node has an estimate and a residual (probability not given out yet). The biased nodes start with
+ * all the residual, and a node whose residual is larger than epsilon times its degree is pushed: it keeps alpha of its
+ * residual as estimate and gives the rest to its neighbours in equal parts. When no node is above the threshold the
+ * estimates are within epsilon * degree of the exact scores.
+ *
+ * Only the nodes that the residual reaches are touched, and both vectors are sparse (open addressing on the dense ID),
+ * so the cost depends on the size of the neighbourhood of the biased nodes and on epsilon, not on the size of the graph.
+ *
+ * PSEUDO CODE
+ * 1. residual[s] = 1 / |seeds| for every seed s, put the seeds in the queue.
+ * 2. Take u from the queue: estimate[u] += alpha * residual[u], every neighbour v gets
+ *    (1 - alpha) * residual[u] / degree(u), residual[u] = 0.
+ * 3. A neighbour whose residual goes above epsilon * degree is put in the queue. Repeat from (2) until it is empty.
+ */
+public class PersonalizedPageRank {
+
+    // Probability of jumping back to the biased nodes, 1 - the damping of PageRankCentrality.
+    public static final double DEFAULT_ALPHA = 0.15;
+    // Residual per relation under which a node is not pushed anymore.
+    public static final double DEFAULT_EPSILON = 0.000001;
+
+    private final CompactGraph graph;
+    private final double alpha;
+    private final double epsilon;
+    private final SparseVector estimate = new SparseVector();
+    private final SparseVector residual = new SparseVector();
+    private long pushes;
+
+    /**
+     * Constructor of the class, the scores are computed here.
+     *
+     * @param graph = The graph, every relation in both directions.
+     * @param seeds = Dense IDs of the biased nodes, the jumps are spread evenly over them.
+     * @param alpha = Probability of jumping back to the seeds (between 0 and 1).
+     * @param epsilon = Residual per relation under which a node is not pushed anymore.
+     */
+    public PersonalizedPageRank(CompactGraph graph, int[] seeds, double alpha, double epsilon) {
+        if (alpha <= 0 || alpha >= 1)
+            throw new IllegalArgumentException("Alpha must be in (0, 1) but was " + alpha);
+        if (epsilon <= 0)
+            throw new IllegalArgumentException("Epsilon must be positive but was " + epsilon);
+        this.graph = graph;
+        this.alpha = alpha;
+        this.epsilon = epsilon;
+
+        push(seeds);
+    }
+
+    /**
+     * Constructor seeded from the biased nodes, with the default parameters.
+     *
+     * @param graph = The graph, built from neo4j nodes.
+     * @param bias = The biased nodes, the ones that are not in the graph are ignored.
+     */
+    public PersonalizedPageRank(CompactGraph graph, BiasSet bias) {
+        this(graph, seeds(graph, bias), DEFAULT_ALPHA, DEFAULT_EPSILON);
+    }
+
+    /**
+     * @return The dense IDs of the biased nodes of the graph, looked up in the Node index of the graph (see
+     * CompactGraph.denseId), so the cost is the number of biased nodes and not the size of the graph.
+     */
+    public static int[] seeds(CompactGraph graph, BiasSet bias) {
+        int[] seeds = new int[bias.size()];
+        int count = 0;
+        for (Node node : bias.nodes()) {
+            int v = graph.denseId(node);
+            if (v >= 0)
+                seeds[count++] = v;
+        }
+        return Arrays.copyOf(seeds, count);
+    }
+
+    private void push(int[] seeds) {
+        if (seeds.length == 0)
+            return;
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+
+        // Queue of the nodes to push. A node is added when its residual goes above its threshold, and its residual is
+        // set to 0 when it is pushed, so it is not added again while it waits.
+        IntQueue queue = new IntQueue();
+        for (int s : seeds) {
+            if (residual.get(s) == 0)
+                queue.add(s);
+            residual.add(s, 1.0 / seeds.length);
+        }
+
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            double r = residual.get(u);
+            if (r == 0)
+                continue;
+            residual.put(u, 0);
+            pushes++;
+            int degree = offsets[u + 1] - offsets[u];
+            if (degree == 0) {
+                // A node without relations keeps all of it, there is nowhere to walk.
+                estimate.add(u, r);
+                continue;
+            }
+            estimate.add(u, alpha * r);
+            double share = (1 - alpha) * r / degree;
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = targets[i];
+                double threshold = epsilon * (offsets[v + 1] - offsets[v]);
+                double updated = residual.add(v, share);
+                if (updated > threshold && updated - share <= threshold)
+                    queue.add(v);
+            }
+        }
+    }
+
+    /**
+     * @return The suspicion score of a dense node ID, 0 when the walks from the biased nodes never reached it.
+     */
+    public double score(int v) {
+        return estimate.get(v);
+    }
+
+    /**
+     * @return Number of nodes with a score, the size of the neighbourhood that was touched.
+     */
+    public int touched() {
+        return estimate.size();
+    }
+
+    /**
+     * @return Number of pushes done, the work of the approximation.
+     */
+    public long getPushes() {
+        return pushes;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param k = Number of nodes wanted.
+     * @return The dense IDs of the k nodes with the highest scores, highest first.
+     */
+    public int[] top(int k) {
+        TopK best = new TopK(k);
+        for (int slot = 0; slot < estimate.capacity(); slot++) {
+            if (estimate.used(slot))
+                best.offer(estimate.key(slot), estimate.value(slot));
+        }
+        return best.sorted();
+    }
+
+    /**
+     * Method that finds the most suspicious nodes of every community in one pass over the scored nodes.
+     *
+     * @param result = Communities found over the same graph.
+     * @param k = Number of nodes wanted per community.
+     * @return For every community (0 to communityCount() - 1) the dense IDs of its k nodes with the highest scores,
+     * highest first. Empty when no node of the community was reached.
+     */
+    public int[][] topPerCommunity(CommunityResult result, int k) {
+        TopK[] best = new TopK[result.communityCount()];
+        for (int slot = 0; slot < estimate.capacity(); slot++) {
+            if (!estimate.used(slot))
+                continue;
+            int c = result.communityOf(estimate.key(slot));
+            if (c < 0)
+                continue;
+            if (best[c] == null)
+                best[c] = new TopK(k);
+            best[c].offer(estimate.key(slot), estimate.value(slot));
+        }
+        int[][] top = new int[best.length][];
+        for (int c = 0; c < best.length; c++)
+            top[c] = best[c] == null ? new int[0] : best[c].sorted();
+        return top;
+    }
+
+    /**
+     * Method that prints the most suspicious nodes of every community, in the same format as the centralities.
+     *
+     * @param result = Communities found over the same graph.
+     * @param k = Number of nodes per community.
+     */
+    public void print_suspicion(CommunityResult result, int k) {
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Personalized PageRank reached " + touched() + " nodes with " + pushes + " pushes");
+        int[][] top = topPerCommunity(result, k);
+        for (int c = 0; c < top.length; c++) {
+            for (int rank = 0; rank < top[c].length; rank++) {
+                Node node = graph.node(top[c][rank]);
+                Reporter.central_node(rank + 1, "Suspicious", node, "has suspicion score", score(top[c][rank]),
+                        "community " + result.labelOf(c));
+            }
+        }
+    }
+
+    /**
+     * Growable queue of ints.
+     */
+    private static final class IntQueue {
+        private int[] values = new int[16];
+        private int head;
+        private int tail;
+
+        private void add(int value) {
+            if (tail == values.length) {
+                if (head > values.length / 2) {
+                    System.arraycopy(values, head, values, 0, tail - head);
+                } else {
+                    values = Arrays.copyOf(values, values.length * 2);
+                    System.arraycopy(values, head, values, 0, tail - head);
+                }
+                tail -= head;
+                head = 0;
+            }
+            values[tail++] = value;
+        }
+
+        private int poll() {
+            return values[head++];
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+    }
+
+    /**
+     * Map from dense ID to double with open addressing (linear probing), so only the touched nodes take memory and
+     * no value is boxed.
+     */
+    private static final class SparseVector {
+        private static final int EMPTY = -1;
+        private int[] keys = new int[16];
+        private double[] values = new double[16];
+        private int size;
+
+        private SparseVector() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        double get(int key) {
+            int slot = slot(key);
+            return keys[slot] == key ? values[slot] : 0;
+        }
+
+        void put(int key, double value) {
+            int slot = slot(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+            if (size * 2 > keys.length)
+                grow();
+        }
+
+        /**
+         * @return The value after the addition.
+         */
+        double add(int key, double value) {
+            int slot = slot(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            double updated = values[slot] + value;
+            values[slot] = updated;
+            if (size * 2 > keys.length)
+                grow();
+            return updated;
+        }
+
+        private void grow() {
+            int[] old_keys = keys;
+            double[] old_values = values;
+            keys = new int[old_keys.length * 2];
+            values = new double[old_values.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < old_keys.length; i++) {
+                if (old_keys[i] != EMPTY) {
+                    int slot = slot(old_keys[i]);
+                    keys[slot] = old_keys[i];
+                    values[slot] = old_values[i];
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        boolean used(int slot) {
+            return keys[slot] != EMPTY;
+        }
+
+        int key(int slot) {
+            return keys[slot];
+        }
+
+        double value(int slot) {
+            return values[slot];
+        }
+    }
+}
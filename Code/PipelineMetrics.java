@@ -0,0 +1,251 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing management and Collection data structures packages.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+
+/**
+ * Class that measures where the time of a run goes. Every stage of the pipeline (queries, GraphDB construction,
+ * algorithms, centrality, writeback) is timed with:
+ *
+ *      try (PipelineMetrics.Stage stage = PipelineMetrics.stage("graph_construction")) {
+ *          ...
+ *          stage.items(edges);
+ *      }
+ *
+ * For each stage the wall time, the items processed per second (records, edges or nodes) and the heap high-water mark
+ * are kept. Every iteration of Label Propagation is also kept with its duration and the number of labels it changed,
+ * up to MAX_ITERATION_RECORDS of them (the next ones are only counted).
+ *
+ * Everything is emitted as custom JFR events (category "Neo4j Algo", see JfrEvents), so a recording started with
+ * -XX:StartFlightRecording shows them next to GC and allocation events, and summary() gives the totals as one JSON
+ * object at the end of the run.
+ *
+ * Stages with the same name are added together (for example the centrality of every community), and stages can be
+ * nested and opened from any thread (the background I/O stages). The heap high-water mark is the peak of the heap
+ * memory pools since they were reset, which only happens when a stage starts while no other stage is open. So the
+ * peak of an outermost stage covers exactly that stage, and the peak of a nested stage covers the stages around it
+ * up to its end (an upper bound), the peak an enclosing stage is measuring is never lost.
+ */
+public class PipelineMetrics {
+
+    // Iterations of Label Propagation kept for the summary.
+    public static final int MAX_ITERATION_RECORDS = 10_000;
+
+    private static final JfrEvents STAGE_EVENTS = JfrEvents.define("neo4jalgo.Stage", "Pipeline Stage",
+            "A stage of the community detection pipeline",
+            new String[]{"stage", "items", "itemsPerSecond", "heapPeak"},
+            new Class<?>[]{String.class, long.class, double.class, long.class},
+            new String[]{"Stage", "Items", "Items per Second", "Heap High-Water Mark"}, "heapPeak");
+    private static final JfrEvents ITERATION_EVENTS = JfrEvents.define("neo4jalgo.LabelPropagationIteration",
+            "Label Propagation Iteration", "An iteration of Label Propagation over all the nodes",
+            new String[]{"algorithm", "iteration", "changedLabels", "modularity"},
+            new Class<?>[]{String.class, int.class, long.class, double.class},
+            new String[]{"Algorithm", "Iteration", "Changed Labels", "Modularity"}, null);
+
+    private static final List<MemoryPoolMXBean> heap_pools = heap_pools();
+    private static final Map<String, StageTotal> stages = new LinkedHashMap<>();
+    private static final List<IterationRecord> iterations = new ArrayList<>();
+    private static long dropped_iterations;
+    // Stages open on all the threads.
+    private static int open_stages;
+    private static long heap_peak;
+
+    private PipelineMetrics() {
+    }
+
+    /**
+     * Method that starts timing a stage, it ends when the Stage is closed.
+     * @param name = Name of the stage in the summary and in the JFR events.
+     */
+    public static synchronized Stage stage(String name) {
+        if (open_stages++ == 0) {
+            heap_peak = Math.max(heap_peak, read_heap_peak());
+            for (MemoryPoolMXBean pool : heap_pools)
+                pool.resetPeakUsage();
+        }
+        return new Stage(name);
+    }
+
+    /**
+     * Method that starts timing an iteration of Label Propagation, it ends with Iteration.end.
+     * @param algorithm = Name of the Label Propagation variant.
+     * @param iteration = Number of the iteration, starting at 1.
+     */
+    public static Iteration iteration(String algorithm, int iteration) {
+        return new Iteration(algorithm, iteration);
+    }
+
+    /**
+     * @return Totals of every stage and every Label Propagation iteration as a JSON object.
+     */
+    public static synchronized String summary() {
+        heap_peak = Math.max(heap_peak, read_heap_peak());
+        StringBuilder json = new StringBuilder("{\"stages\":[");
+        String separator = "";
+        for (StageTotal total : stages.values()) {
+            double seconds = total.nanos / 1e9;
+            json.append(separator)
+                    .append("{\"stage\":\"").append(total.name)
+                    .append("\",\"runs\":").append(total.runs)
+                    .append(",\"wall_ms\":").append(total.nanos / 1e6)
+                    .append(",\"items\":").append(total.items)
+                    .append(",\"items_per_second\":").append(seconds > 0 ? total.items / seconds : 0)
+                    .append(",\"heap_peak_bytes\":").append(total.heap_peak)
+                    .append('}');
+            separator = ",";
+        }
+        json.append("],\"label_propagation_iterations\":[");
+        separator = "";
+        for (IterationRecord iteration : iterations) {
+            json.append(separator)
+                    .append("{\"algorithm\":\"").append(iteration.algorithm)
+                    .append("\",\"iteration\":").append(iteration.iteration)
+                    .append(",\"wall_ms\":").append(iteration.nanos / 1e6)
+                    .append(",\"changed_labels\":").append(iteration.changed_labels)
+                    .append(",\"modularity\":").append(Double.isNaN(iteration.modularity) ? "null" : String.valueOf(iteration.modularity))
+                    .append('}');
+            separator = ",";
+        }
+        return json.append("],\"dropped_iterations\":").append(dropped_iterations)
+                .append(",\"heap_peak_bytes\":").append(heap_peak).append('}').toString();
+    }
+
+    private static List<MemoryPoolMXBean> heap_pools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pools.add(pool);
+        }
+        return pools;
+    }
+
+    /**
+     * @return The peak of the heap pools since the last reset, without resetting them.
+     */
+    private static long read_heap_peak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap_pools) {
+            MemoryUsage usage = pool.getPeakUsage();
+            if (usage != null)
+                peak += usage.getUsed();
+        }
+        return peak;
+    }
+
+    private static synchronized void close(Stage stage) {
+        long nanos = System.nanoTime() - stage.start;
+        long peak = read_heap_peak();
+        open_stages--;
+        heap_peak = Math.max(heap_peak, peak);
+
+        StageTotal total = stages.get(stage.name);
+        if (total == null) {
+            total = new StageTotal(stage.name);
+            stages.put(stage.name, total);
+        }
+        total.runs++;
+        total.nanos += nanos;
+        total.items += stage.items;
+        total.heap_peak = Math.max(total.heap_peak, peak);
+
+        STAGE_EVENTS.commit(stage.event, stage.name, stage.items, nanos > 0 ? stage.items / (nanos / 1e9) : 0, peak);
+    }
+
+    private static synchronized void close(Iteration iteration, long changed_labels, double modularity) {
+        if (iterations.size() < MAX_ITERATION_RECORDS) {
+            iterations.add(new IterationRecord(iteration.algorithm, iteration.iteration, System.nanoTime() - iteration.start,
+                    changed_labels, modularity));
+        } else {
+            dropped_iterations++;
+        }
+
+        ITERATION_EVENTS.commit(iteration.event, iteration.algorithm, iteration.iteration, changed_labels, modularity);
+    }
+
+    /**
+     * A stage being timed.
+     */
+    public static final class Stage implements AutoCloseable {
+        private final String name;
+        private final long start;
+        // JFR event, null when no events are emitted.
+        private final Object event = STAGE_EVENTS.begin();
+        private long items;
+
+        private Stage(String name) {
+            this.name = name;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * @param count = Number of records, edges or nodes processed by the stage, added to the previous count.
+         */
+        public void items(long count) {
+            this.items += count;
+        }
+
+        @Override
+        public void close() {
+            PipelineMetrics.close(this);
+        }
+    }
+
+    /**
+     * An iteration of Label Propagation being timed.
+     */
+    public static final class Iteration {
+        private final String algorithm;
+        private final int iteration;
+        private final long start;
+        private final Object event = ITERATION_EVENTS.begin();
+
+        private Iteration(String algorithm, int iteration) {
+            this.algorithm = algorithm;
+            this.iteration = iteration;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * @param changed_labels = Number of nodes whose label changed in the iteration.
+         * @param modularity = Modularity of the labels after the iteration, NaN when it is not computed.
+         */
+        public void end(long changed_labels, double modularity) {
+            PipelineMetrics.close(this, changed_labels, modularity);
+        }
+    }
+
+    private static final class StageTotal {
+        private final String name;
+        private int runs;
+        private long nanos;
+        private long items;
+        private long heap_peak;
+
+        private StageTotal(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class IterationRecord {
+        private final String algorithm;
+        private final int iteration;
+        private final long nanos;
+        private final long changed_labels;
+        private final double modularity;
+
+        private IterationRecord(String algorithm, int iteration, long nanos, long changed_labels, double modularity) {
+            this.algorithm = algorithm;
+            this.iteration = iteration;
+            this.nanos = nanos;
+            this.changed_labels = changed_labels;
+            this.modularity = modularity;
+        }
+    }
+}
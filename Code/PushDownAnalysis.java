@@ -0,0 +1,150 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, concurrency and Collection data structures packages.
+ */
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Degree-only analysis of the graph of a pair of filtering queries, computed by the server with Cypher aggregation.
+ *
+ * DegreeCentrality only needs the number of neighbours of every node, but through GraphDB it costs the extraction of
+ * every node and relation (with all their properties) and the Maps of the whole network. Here the filtering queries
+ * are wrapped in CALL subqueries and aggregated where the data is, so only a few rows come back:
+ * - the number of nodes and of relations;
+ * - the degree distribution, one row (degree, number of nodes) per distinct degree;
+ * - the k nodes with the highest degree, with their degree.
+ *
+ * The degree is counted as in GraphDB: the number of distinct neighbours, whatever the direction and number of the
+ * relations between two nodes. The three queries are sent at the same time, on their own sessions (see IoThreads).
+ *
+ * The community detection pipelines need the whole topology and still run on the local graph.
+ */
+public class PushDownAnalysis {
+
+    // Every relation of the filter query seen from both of its nodes, then the distinct neighbours of every node.
+    private static final String DEGREES = "" +
+            "UNWIND [[n, m], [m, n]] AS pair " +
+            "WITH pair[0] AS node, count(DISTINCT pair[1]) AS degree ";
+
+    private final long node_count;
+    private final long relation_count;
+    // Number of nodes of every degree above 0, by increasing degree.
+    private final NavigableMap<Long, Long> distribution = new TreeMap<>();
+    private final List<Node> top_nodes = new ArrayList<>();
+    private final List<Long> top_degrees = new ArrayList<>();
+
+    /**
+     * Constructor of the class, the queries are run here.
+     *
+     * @param connector = Open connection to the server.
+     * @param node_query = Query returning every node involved as "n" (for example sub_query_relation).
+     * @param relation_query = Query returning every relation as "n", "r", "m" (for example main_query_relation).
+     * @param k = Number of nodes with the highest degree wanted.
+     */
+    public PushDownAnalysis(Connector connector, String node_query, String relation_query, int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("Number of top nodes must not be negative but was " + k);
+        String nodes = "CALL { " + node_query + " } RETURN count(DISTINCT n) AS nodes";
+        String relations = "CALL { " + relation_query + " } RETURN count(DISTINCT r) AS relations";
+        String degrees = "CALL { " + relation_query + " } " + DEGREES +
+                "RETURN degree, count(*) AS nodes ORDER BY degree";
+        String top = "CALL { " + relation_query + " } " + DEGREES +
+                "RETURN node, degree ORDER BY degree DESC, id(node) LIMIT $k";
+
+        CompletableFuture<List<Record>> node_rows = IoThreads.supplyAsync("neo4j-node-count", () -> connector.executeSimpleQuery(nodes));
+        CompletableFuture<List<Record>> relation_rows = IoThreads.supplyAsync("neo4j-relation-count", () -> connector.executeSimpleQuery(relations));
+        CompletableFuture<List<Record>> degree_rows = IoThreads.supplyAsync("neo4j-degrees", () -> connector.executeSimpleQuery(degrees));
+        List<Record> top_rows = connector.executeQuery(top, Values.parameters("k", k));
+
+        this.node_count = await(node_rows).get(0).get("nodes").asLong();
+        this.relation_count = await(relation_rows).get(0).get("relations").asLong();
+        for (Record record : await(degree_rows))
+            distribution.put(record.get("degree").asLong(), record.get("nodes").asLong());
+        for (Record record : top_rows) {
+            top_nodes.add(record.get("node").asNode());
+            top_degrees.add(record.get("degree").asLong());
+        }
+    }
+
+    /**
+     * @return The rows of a query run in the background, with the exception of the query if it failed.
+     */
+    private static List<Record> await(CompletableFuture<List<Record>> rows) {
+        try {
+            return rows.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    public long getNodeCount() {
+        return node_count;
+    }
+
+    public long getRelationCount() {
+        return relation_count;
+    }
+
+    /**
+     * @return Number of nodes of the node query without any relation of the relation query.
+     */
+    public long getSingleNodeCount() {
+        long connected = 0;
+        for (long nodes : distribution.values())
+            connected += nodes;
+        return Math.max(0, node_count - connected);
+    }
+
+    /**
+     * @return Number of nodes of every degree above 0, by increasing degree.
+     */
+    public NavigableMap<Long, Long> getDistribution() {
+        return Collections.unmodifiableNavigableMap(distribution);
+    }
+
+    /**
+     * @return The nodes with the highest degree, highest first (ties by increasing ID).
+     */
+    public List<Node> getTopNodes() {
+        return Collections.unmodifiableList(top_nodes);
+    }
+
+    /**
+     * @return The degree of every node of getTopNodes, in the same order.
+     */
+    public List<Long> getTopDegrees() {
+        return Collections.unmodifiableList(top_degrees);
+    }
+
+    /**
+     * Method that prints the report: the counts and the average and largest degree, the distribution at COMMUNITIES
+     * and the top nodes in the same format as DegreeCentrality.
+     */
+    public void print_report() {
+        long connected = node_count - getSingleNodeCount();
+        long degree_sum = 0;
+        for (Map.Entry<Long, Long> degree : distribution.entrySet())
+            degree_sum += degree.getKey() * degree.getValue();
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Nodes : " + node_count + ", relations : " + relation_count
+                + ", nodes without relations : " + getSingleNodeCount());
+        if (connected > 0)
+            Reporter.message(Reporter.Verbosity.SUMMARY, "Average degree : " + (double) degree_sum / connected
+                    + ", largest degree : " + distribution.lastKey());
+        if (Reporter.enabled(Reporter.Verbosity.COMMUNITIES)) {
+            for (Map.Entry<Long, Long> degree : distribution.entrySet())
+                Reporter.message(Reporter.Verbosity.COMMUNITIES, "Degree " + degree.getKey() + " : " + degree.getValue() + " nodes");
+        }
+        for (int rank = 0; rank < top_nodes.size(); rank++)
+            Reporter.central_node(rank + 1, "Popular", top_nodes.get(rank), "has degree power", top_degrees.get(rank), null);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing Collection data structures packages.
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the relationship types of the graph. A knowledge graph has millions of relations but only a handful
+ * of types, so every type name is kept once here and the relations only keep its short code.
+ * Codes are given in the order the types are first seen and never change during a run.
+ */
+public final class RelationshipTypes {
+
+    private static final Map<String, Short> codes = new ConcurrentHashMap<>();
+    // Name of every code. Replaced by a longer copy when a type is added, so it is read without locking.
+    private static volatile String[] names = new String[0];
+
+    private RelationshipTypes() {
+    }
+
+    /**
+     * @return The code of a relationship type, a new code is given the first time a type is seen.
+     */
+    public static short code(String type) {
+        Short code = codes.get(type);
+        return code != null ? code : add(type);
+    }
+
+    private static synchronized short add(String type) {
+        Short code = codes.get(type);
+        if (code != null)
+            return code;
+        String[] current = names;
+        if (current.length > Short.MAX_VALUE)
+            throw new IllegalStateException("More than " + Short.MAX_VALUE + " relationship types");
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = type;
+        // The name is published before the code, so a code that is read always has its name.
+        names = grown;
+        codes.put(type, (short) current.length);
+        return (short) current.length;
+    }
+
+    /**
+     * @return The name of the relationship type with the given code.
+     */
+    public static String name(short code) {
+        return names[code];
+    }
+
+    /**
+     * @return Number of relationship types seen so far.
+     */
+    public static int count() {
+        return names.length;
+    }
+}
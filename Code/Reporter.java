@@ -0,0 +1,445 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, IO, concurrency and Collection data structures packages.
+ */
+
+import org.neo4j.driver.types.Node;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that writes the results of the algorithms (iterations, communities, central nodes) in the background.
+ *
+ * Printing every node ID with System.out takes the lock of System.out and formats the line on the thread of the
+ * algorithm, for every node. Here the algorithms only publish small events (numbers, node IDs, the Node of a central
+ * node) to a bounded queue, and one writer thread turns them into text and writes them in large blocks to the
+ * console or to a file. When the queue is full the algorithm waits for the writer, so nothing is lost and the memory
+ * used by the queue stays bounded.
+ *
+ * What is written depends on the verbosity, and events above it are dropped before anything is built:
+ * SUMMARY      = totals of every algorithm (modularity, number of components, quality of the result);
+ * ITERATIONS   = also a line for every iteration or level of the iterative algorithms;
+ * COMMUNITIES  = also the label and size of every community, its central nodes and its quality;
+ * NODES        = also the ID of every node of every community (the output of the pipeline before this class).
+ *
+ * Anything printed directly with System.out (the menu of Connector, for example) should call flush() first, so it
+ * comes after the results published before it.
+ *
+ * An event that cannot be formatted is reported on System.err and skipped, the writer goes on with the next one. If
+ * the writer thread still dies, the callers do not wait for it: the events are then written directly to the console
+ * on the thread that publishes them, and flush() returns.
+ */
+public final class Reporter {
+
+    public enum Verbosity { QUIET, SUMMARY, ITERATIONS, COMMUNITIES, NODES }
+
+    // Events waiting for the writer, the algorithms wait when it is full.
+    public static final int QUEUE_CAPACITY = 4096;
+    // Size of the blocks written to the console or to the file.
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static volatile Verbosity verbosity = Verbosity.NODES;
+    private static Path file;
+    private static volatile BlockingQueue<Event> queue;
+    private static Thread writer;
+    // Set when the writer thread ended without being stopped, the events are then written by the callers.
+    private static volatile boolean writer_dead;
+    // How long a caller waits on the queue before it checks again that the writer is alive.
+    private static final long WAIT_MS = 100;
+    private static boolean shutdown_hook;
+
+    private Reporter() {
+    }
+
+    /**
+     * Method that sets where and how much is written. The events already published are written with the previous
+     * settings first.
+     *
+     * @param level = Verbosity of the report, QUIET writes nothing.
+     * @param report_file = File the report is written to (replaced if it exists), null for the console.
+     */
+    public static synchronized void configure(Verbosity level, Path report_file) {
+        stop();
+        verbosity = level;
+        file = report_file;
+    }
+
+    /**
+     * @param level = Verbosity of an event.
+     * @return If events of this verbosity are written, so the caller can skip building them.
+     */
+    public static boolean enabled(Verbosity level) {
+        return level != Verbosity.QUIET && level.compareTo(verbosity) <= 0;
+    }
+
+    /**
+     * Method that publishes a line of text.
+     * @param level = Verbosity of the line.
+     * @param text = The line, without the line break.
+     */
+    public static void message(Verbosity level, String text) {
+        if (enabled(level))
+            publish(new Message(text));
+    }
+
+    /**
+     * Method that publishes an iteration of Label Propagation, written at ITERATIONS.
+     *
+     * @param algorithm = Name of the Label Propagation variant.
+     * @param iteration = Number of the iteration, starting at 1.
+     * @param changed_labels = Number of nodes whose label changed in the iteration.
+     * @param modularity = Modularity of the labels after the iteration, NaN when it is not computed.
+     */
+    public static void iteration(String algorithm, int iteration, long changed_labels, double modularity) {
+        if (enabled(Verbosity.ITERATIONS))
+            publish(new IterationEvent(algorithm, iteration, changed_labels, modularity));
+    }
+
+    /**
+     * Method that publishes a community, written at COMMUNITIES, with the IDs of its nodes at NODES.
+     *
+     * @param counter = Position of the community in the printed results, starting at 1.
+     * @param label = Label of the community.
+     * @param nodes = Nodes of the community, their IDs are copied so the collection can change afterwards.
+     */
+    public static void community(int counter, int label, Collection<Node> nodes) {
+        if (!enabled(Verbosity.COMMUNITIES))
+            return;
+        long[] ids = null;
+        if (enabled(Verbosity.NODES)) {
+            ids = new long[nodes.size()];
+            int i = 0;
+            for (Node node : nodes)
+                ids[i++] = node.id();
+        }
+        publish(new CommunityEvent(counter, label, nodes.size(), ids));
+    }
+
+    /**
+     * Method that publishes one of the most central nodes of a community, written at COMMUNITIES.
+     *
+     * @param rank = Position of the node in the ranking, starting at 1.
+     * @param kind = Name of the ranking in the line, for example "Popular" or "PageRank".
+     * @param node = The node, its labels and properties are written.
+     * @param measure = Text before the score, for example "has degree power".
+     * @param score = Score of the node.
+     * @param note = Text written after the score, null for none.
+     */
+    public static void central_node(int rank, String kind, Node node, String measure, Number score, String note) {
+        if (enabled(Verbosity.COMMUNITIES))
+            publish(new CentralNodeEvent(rank, kind, node, measure, score, note));
+    }
+
+    /**
+     * Method that waits until every event published before has been written.
+     */
+    public static void flush() {
+        BlockingQueue<Event> current = queue;
+        if (current == null)
+            return;
+        Flush flush = new Flush();
+        put(current, flush);
+        try {
+            while (!flush.done.await(WAIT_MS, TimeUnit.MILLISECONDS)) {
+                if (writer_dead)
+                    return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void publish(Event event) {
+        BlockingQueue<Event> current = queue;
+        if (current == null)
+            current = start();
+        put(current, event);
+    }
+
+    /**
+     * Method that puts an event in the queue, waiting while it is full. When the writer is dead the event is written
+     * directly instead.
+     */
+    private static void put(BlockingQueue<Event> current, Event event) {
+        try {
+            while (!writer_dead) {
+                if (current.offer(event, WAIT_MS, TimeUnit.MILLISECONDS))
+                    return;
+            }
+            write_directly(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method that writes an event to the console on the calling thread, used once the writer thread is dead.
+     */
+    private static void write_directly(Event event) {
+        StringBuilder text = new StringBuilder();
+        if (!format(event, text))
+            return;
+        synchronized (System.out) {
+            System.out.print(text);
+            System.out.flush();
+        }
+    }
+
+    /**
+     * Method that formats an event, an event that fails is reported on System.err and leaves nothing in the text.
+     * @return If the event was formatted.
+     */
+    private static boolean format(Event event, StringBuilder text) {
+        int length = text.length();
+        try {
+            event.format(text);
+            return true;
+        } catch (RuntimeException e) {
+            text.setLength(length);
+            System.err.println("Reporter could not write an event: " + e);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Method that starts the writer thread the first time something is published.
+     */
+    private static synchronized BlockingQueue<Event> start() {
+        if (queue != null)
+            return queue;
+        Writer out;
+        try {
+            out = file == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the report file " + file, e);
+        }
+        BlockingQueue<Event> events = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        writer_dead = false;
+        writer = new Thread(() -> write(events, new BufferedWriter(out, BUFFER_SIZE), file != null), "reporter");
+        writer.setDaemon(true);
+        writer.start();
+        if (!shutdown_hook) {
+            // Whatever is still in the queue when the program ends is written before the JVM exits.
+            Runtime.getRuntime().addShutdownHook(new Thread(Reporter::flush, "reporter-shutdown"));
+            shutdown_hook = true;
+        }
+        queue = events;
+        return events;
+    }
+
+    /**
+     * Method that writes everything published so far and stops the writer, closing the report file.
+     */
+    private static synchronized void stop() {
+        if (queue == null)
+            return;
+        flush();
+        put(queue, new Stop());
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue = null;
+        writer = null;
+    }
+
+    /**
+     * Loop of the writer thread. It takes every event waiting in the queue at once, formats them into one block and
+     * writes the block, and flushes when the queue is empty. After a write error the events are still taken (the
+     * algorithms would wait forever on a full queue) but not written. If the loop ends without a Stop (an Error), the
+     * writer is marked dead and the flushes waiting in the queue are released.
+     */
+    private static void write(BlockingQueue<Event> events, Writer out, boolean close) {
+        boolean stopped = false;
+        try {
+            stopped = write_events(events, out, close);
+        } finally {
+            if (!stopped) {
+                writer_dead = true;
+                List<Event> pending = new ArrayList<>();
+                events.drainTo(pending);
+                for (Event event : pending) {
+                    if (event instanceof Flush)
+                        ((Flush) event).done.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return If the loop ended on a Stop.
+     */
+    private static boolean write_events(BlockingQueue<Event> events, Writer out, boolean close) {
+        List<Event> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder(BUFFER_SIZE);
+        boolean failed = false;
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(events.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            events.drainTo(batch);
+            for (Event event : batch) {
+                if (event instanceof Flush || event instanceof Stop) {
+                    failed = write_block(out, text, true, failed);
+                    if (event instanceof Flush)
+                        ((Flush) event).done.countDown();
+                    stopped = event instanceof Stop;
+                } else {
+                    format(event, text);
+                    if (text.length() >= BUFFER_SIZE)
+                        failed = write_block(out, text, false, failed);
+                }
+            }
+            batch.clear();
+            failed = write_block(out, text, events.isEmpty(), failed);
+        }
+        if (close && !failed) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return stopped;
+    }
+
+    private static boolean write_block(Writer out, StringBuilder text, boolean flush, boolean failed) {
+        if (!failed) {
+            try {
+                out.append(text);
+                if (flush)
+                    out.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                failed = true;
+            }
+        }
+        text.setLength(0);
+        return failed;
+    }
+
+    /**
+     * An event published by an algorithm. It is turned into text by the writer thread.
+     */
+    private abstract static class Event {
+        abstract void format(StringBuilder text);
+    }
+
+    private static final class Message extends Event {
+        private final String text;
+
+        private Message(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void format(StringBuilder out) {
+            out.append(text).append('\n');
+        }
+    }
+
+    private static final class IterationEvent extends Event {
+        private final String algorithm;
+        private final int iteration;
+        private final long changed_labels;
+        private final double modularity;
+
+        private IterationEvent(String algorithm, int iteration, long changed_labels, double modularity) {
+            this.algorithm = algorithm;
+            this.iteration = iteration;
+            this.changed_labels = changed_labels;
+            this.modularity = modularity;
+        }
+
+        @Override
+        void format(StringBuilder out) {
+            out.append('[').append(algorithm).append(" iteration ").append(iteration)
+                    .append("] labels changed : ").append(changed_labels);
+            if (!Double.isNaN(modularity))
+                out.append(", modularity : ").append(modularity);
+            out.append('\n');
+        }
+    }
+
+    private static final class CommunityEvent extends Event {
+        private final int counter;
+        private final int label;
+        private final int size;
+        private final long[] ids;
+
+        private CommunityEvent(int counter, int label, int size, long[] ids) {
+            this.counter = counter;
+            this.label = label;
+            this.size = size;
+            this.ids = ids;
+        }
+
+        @Override
+        void format(StringBuilder out) {
+            out.append('[').append(counter).append("] Community Label is: ").append(label).append('\n');
+            out.append("Size of community is :").append(size).append('\n');
+            if (ids != null) {
+                for (long id : ids)
+                    out.append("Node: ").append(id).append("  ");
+                out.append('\n');
+            }
+        }
+    }
+
+    private static final class CentralNodeEvent extends Event {
+        private final int rank;
+        private final String kind;
+        private final Node node;
+        private final String measure;
+        private final Number score;
+        private final String note;
+
+        private CentralNodeEvent(int rank, String kind, Node node, String measure, Number score, String note) {
+            this.rank = rank;
+            this.kind = kind;
+            this.node = node;
+            this.measure = measure;
+            this.score = score;
+            this.note = note;
+        }
+
+        @Override
+        void format(StringBuilder out) {
+            out.append('[').append(rank).append(' ').append(kind).append(" node]")
+                    .append(node.labels()).append(node.values()).append("  ")
+                    .append(measure).append(' ').append(score);
+            if (note != null)
+                out.append(" (").append(note).append(')');
+            out.append('\n');
+        }
+    }
+
+    private static final class Flush extends Event {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        void format(StringBuilder out) {
+        }
+    }
+
+    private static final class Stop extends Event {
+        @Override
+        void format(StringBuilder out) {
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Random;
+
+/**
+ * GraphSource that generates random graphs, so the algorithms can be tested and profiled without any data.
+ * Every generator uses a seed, so the same parameters always give the same graph.
+ *
+ * - erdosRenyi: every edge joins two nodes chosen uniformly at random.
+ * - powerLaw: Chung-Lu model, node v is chosen with a probability proportional to a weight (v + 1)^(-1 / (exponent - 1)),
+ *   so the degrees follow a power law with the given exponent. Like real knowledge graphs, a few hubs and many small nodes.
+ * - plantedPartition: nodes are split in communities of equal size, an edge stays inside the community of its first
+ *   node with probability (1 - mixing). The communities are known, so the result of an algorithm can be checked.
+ *
+ * Self loops are skipped, so a node can end up with fewer relations than asked for.
+ */
+public class SyntheticGraphSource extends EdgeArrayGraphSource {
+
+    private SyntheticGraphSource(int node_count) {
+        if (node_count < 2)
+            throw new IllegalArgumentException("A synthetic graph needs at least 2 nodes but was " + node_count);
+        this.node_count = node_count;
+        this.sources = new int[Math.max(1024, node_count)];
+        this.destinations = new int[sources.length];
+        this.types = new short[sources.length];
+    }
+
+    /**
+     * @param node_count = Number of nodes.
+     * @param average_degree = Average number of relations of a node.
+     * @param seed = Seed of the random generator.
+     */
+    public static SyntheticGraphSource erdosRenyi(int node_count, double average_degree, long seed) {
+        SyntheticGraphSource graph = new SyntheticGraphSource(node_count);
+        Random random = new Random(seed);
+        short type = RelationshipTypes.code(DEFAULT_TYPE);
+        long edges = (long) (node_count * average_degree / 2);
+        for (long e = 0; e < edges; e++) {
+            int source = random.nextInt(node_count);
+            int destination = random.nextInt(node_count);
+            if (source != destination)
+                graph.add_edge(source, destination, type);
+        }
+        return graph;
+    }
+
+    /**
+     * @param exponent = Exponent of the degree distribution, must be larger than 2 (typical values 2.1 - 3).
+     */
+    public static SyntheticGraphSource powerLaw(int node_count, double average_degree, double exponent, long seed) {
+        if (exponent <= 2)
+            throw new IllegalArgumentException("Power law exponent must be larger than 2 but was " + exponent);
+        SyntheticGraphSource graph = new SyntheticGraphSource(node_count);
+        Random random = new Random(seed);
+        short type = RelationshipTypes.code(DEFAULT_TYPE);
+
+        // Cumulative weights, a node is drawn with a binary search on a uniform number.
+        double[] cumulative = new double[node_count];
+        double total = 0;
+        for (int v = 0; v < node_count; v++) {
+            total += Math.pow(v + 1, -1 / (exponent - 1));
+            cumulative[v] = total;
+        }
+        long edges = (long) (node_count * average_degree / 2);
+        for (long e = 0; e < edges; e++) {
+            int source = draw(cumulative, random.nextDouble() * total);
+            int destination = draw(cumulative, random.nextDouble() * total);
+            if (source != destination)
+                graph.add_edge(source, destination, type);
+        }
+        return graph;
+    }
+
+    /**
+     * @param communities = Number of communities, nodes are split between them in equal parts.
+     * @param mixing = Fraction of the edges that go to a random node outside the community (0 = isolated communities).
+     */
+    public static SyntheticGraphSource plantedPartition(int node_count, double average_degree, int communities, double mixing, long seed) {
+        if (communities < 1 || communities > node_count)
+            throw new IllegalArgumentException("Number of communities must be between 1 and " + node_count + " but was " + communities);
+        SyntheticGraphSource graph = new SyntheticGraphSource(node_count);
+        Random random = new Random(seed);
+        short type = RelationshipTypes.code(DEFAULT_TYPE);
+        int size = node_count / communities;
+        long edges = (long) (node_count * average_degree / 2);
+        for (long e = 0; e < edges; e++) {
+            int source = random.nextInt(node_count);
+            int destination;
+            int community = Math.min(source / Math.max(size, 1), communities - 1);
+            if (random.nextDouble() < mixing || size < 2) {
+                destination = random.nextInt(node_count);
+            } else {
+                int first = community * size;
+                int last = community == communities - 1 ? node_count : first + size;
+                destination = first + random.nextInt(last - first);
+            }
+            if (source != destination)
+                graph.add_edge(source, destination, type);
+        }
+        return graph;
+    }
+
+    /**
+     * @return The community a node was planted in by plantedPartition.
+     */
+    public static int plantedCommunity(int node, int node_count, int communities) {
+        return Math.min(node / Math.max(node_count / communities, 1), communities - 1);
+    }
+
+    private static int draw(double[] cumulative, double value) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
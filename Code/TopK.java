@@ -0,0 +1,42 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing Collection data structures packages.
+ */
+
+import java.util.PriorityQueue;
+
+/**
+ * The k largest scores seen over dense node IDs, in a min-heap on the score. Keeping the best nodes costs memory in k
+ * and time in (nodes * log k), instead of boxing and sorting every node.
+ */
+final class TopK {
+    private final int k;
+    private final PriorityQueue<double[]> heap;
+
+    TopK(int k) {
+        this.k = k;
+        this.heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a[1], b[1]));
+    }
+
+    void offer(int v, double score) {
+        if (k <= 0)
+            return;
+        if (heap.size() < k) {
+            heap.add(new double[]{v, score});
+        } else if (score > heap.peek()[1]) {
+            heap.poll();
+            heap.add(new double[]{v, score});
+        }
+    }
+
+    /**
+     * @return The dense IDs of the nodes kept, highest score first. The heap is emptied.
+     */
+    int[] sorted() {
+        int[] best = new int[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--)
+            best[i] = (int) heap.poll()[0];
+        return best;
+    }
+}
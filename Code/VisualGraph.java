@@ -3,11 +3,16 @@
  * Importing Data Structure packages as well to use the operations correctly.
  */
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 
-import java.util.Map;
-import java.util.Set;
+import org.neo4j.driver.exceptions.TransientException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.neo4j.driver.Values.parameters;
 
 
 /**
@@ -18,9 +23,52 @@ import java.util.Set;
  */
 public class VisualGraph implements AutoCloseable {
 
+    /**
+     * The ways results can be written back to the server.
+     * RECREATE = One parameterised statement and one transaction for every relation (projectNodesVisualLPA).
+     * BATCHED = Nodes and relations are grouped in chunks, each chunk is one UNWIND statement (projectNodesVisualBatched).
+     * PARALLEL = Same chunks, written by several sessions at the same time (projectNodesVisualParallel).
+     * IN_PLACE = Nothing is copied, the community and centrality are set on the existing source nodes (projectLabelsInPlace).
+     */
+    public enum WritebackMode { RECREATE, BATCHED, PARALLEL, IN_PLACE }
+
+    /**
+     * Property used in batched mode to identify a projected node by the ID it has in the source database, so
+     * relations can find their nodes again without comparing every property.
+     */
+    private static final String SOURCE_ID = "source_id";
+
+    /**
+     * statements = Cypher statements already built, keyed by their kind, labels and relationship type. There is a
+     * fixed set of them (one per label / relationship type combination), so the server can cache their plans.
+     * indexed_labels = Labels that already have an index on SOURCE_ID.
+     */
+    private final Map<String, String> statements = new ConcurrentHashMap<>();
+    private final Set<String> indexed_labels = new HashSet<>();
+
+    /**
+     * Retries of a batch that failed with a transient error (for example a deadlock), and the wait before the first one.
+     */
+    private static final int MAX_RETRIES = 5;
+    private static final long INITIAL_BACKOFF_MS = 50;
+
+    /**
+     * Properties set on the source nodes by the in place mode, the run that set them, and the label that marks the
+     * nodes that have them, so the values of a previous run are found through the label and not by scanning every node.
+     */
+    private static final String COMMUNITY_PROPERTY = "community_id";
+    private static final String CENTRALITY_PROPERTY = "community_degree";
+    private static final String RUN_PROPERTY = "community_run";
+    private static final String COMMUNITY_LABEL = "InCommunity";
+
+    // Number of nodes deleted in one transaction when the projection database is cleared.
+    public static final int DELETE_BATCH_SIZE = 10000;
+
     private final Driver driver;
+    private final String database;
     private final Map<Integer, Set<Node>> resultantSet;
     private final Map<Node, Map<Node, Relationship>> nodeRelations;
+    private final CompletableFuture<Void> clearing;
 
     /**
      * Constructor of the class.
@@ -33,11 +81,42 @@ public class VisualGraph implements AutoCloseable {
      *                      graphs projected have been removed so we can view the new projected knowledge graph in isolation.
      */
     public VisualGraph(String host, String username, String password, Map<Integer, Set<Node>> resultantSet, Map<Node, Map<Node, Relationship>> nodeRelations){
+        this(host, username, password, null, resultantSet, nodeRelations, true);
+    }
+
+    /**
+     * Constructor of the class with a chosen database.
+     * @param database = Name of the database to write to, null for the default database of the server.
+     * @param clear = If true, deletePrevious is called. Must be false when writing in place on the source database.
+     */
+    public VisualGraph(String host, String username, String password, String database, Map<Integer, Set<Node>> resultantSet, Map<Node, Map<Node, Relationship>> nodeRelations, boolean clear){
         this.driver = GraphDatabase.driver( host, AuthTokens.basic( username, password ) );
+        this.database = database;
         this.resultantSet = resultantSet;
         this.nodeRelations = nodeRelations;
+        this.clearing = null;
         // Remove all previous data from the neo4j server.
-        deletePrevious();
+        if (clear)
+            deletePrevious();
+    }
+
+    /**
+     * Constructor of the class when the database is being cleared in the background (see deletePreviousAsync).
+     * @param clearing = Future of the background clearing, every write waits for it first.
+     */
+    public VisualGraph(String host, String username, String password, String database, Map<Integer, Set<Node>> resultantSet, Map<Node, Map<Node, Relationship>> nodeRelations, CompletableFuture<Void> clearing){
+        this.driver = GraphDatabase.driver( host, AuthTokens.basic( username, password ) );
+        this.database = database;
+        this.resultantSet = resultantSet;
+        this.nodeRelations = nodeRelations;
+        this.clearing = clearing;
+    }
+
+    /**
+     * @return A session on the chosen database (or the default one).
+     */
+    private Session open_session() {
+        return database == null ? driver.session() : driver.session(SessionConfig.forDatabase(database));
     }
 
     /**
@@ -50,95 +129,445 @@ public class VisualGraph implements AutoCloseable {
         driver.close();
     }
 
+    /**
+     * Method that writes back the results with the chosen mode.
+     * @param mode = How the results are written back.
+     * @param batch_size = Number of rows per UNWIND statement, used by the batched modes.
+     * @param sessions = Number of sessions writing at the same time, used by the parallel mode.
+     */
+    public void project(WritebackMode mode, int batch_size, int sessions) {
+        switch (mode) {
+            case BATCHED:
+                projectNodesVisualBatched(batch_size);
+                break;
+            case PARALLEL:
+                projectNodesVisualParallel(batch_size, sessions);
+                break;
+            case IN_PLACE:
+                projectLabelsInPlace(batch_size);
+                break;
+            default:
+                projectNodesVisualLPA();
+        }
+    }
+
     /**
      * This is the main method of the class.
      * This is where all the iterations across the resultantSet and nodeRelations are being done to find and construct the
      * projected knowledge graph create from the algorithm.
      * From iterating through both datasets we manage to identify and create manually all the nodes and their relations. Use
-     * cypher command MERGE to avoid duplicate creation of nodes and relationships.
+     * cypher command MERGE to avoid duplicate creation of nodes and relationships. Nodes are merged on their source ID and
+     * their properties are sent as a parameter map.
      */
     public void projectNodesVisualLPA() {
-        // Looping through all the communities.
-        for (Integer community : resultantSet.keySet()) {
-            // Obtaining all Nodes of each community.
-            Set<Node> community_nodes = resultantSet.get(community);
+        await_clearing();
+        try (Session session = open_session()) {
+            // Looping through all the communities.
+            for (Integer community : resultantSet.keySet()) {
+                // Obtaining all Nodes of each community.
+                Set<Node> community_nodes = resultantSet.get(community);
 
-            /**
-             * Create all nodes in the Community.
-             * After we create all nodes, then we will start applying the relationships between the nodes.
-             */
-            // For each node in community to create.
-            for (Node nodeA: community_nodes) {
-                // Each node we re-initialize the StringBuilder.
-                for (Node nodeB: community_nodes) {
+                /**
+                 * Every relation inside the Community creates its two nodes and the relation between them.
+                 * Each member's relations are visited once, so the work grows with the relations of the community and
+                 * not with its size squared. Both nodes of a relation see it, it is written only from the node with
+                 * the smaller ID.
+                 */
+                for (Node nodeA: community_nodes) {
                     // Get a map of all the Nodes A has a relation to.
-                    // Map used to see how the nodes in same community is connected.
                     Map<Node, Relationship> network_connections = nodeRelations.get(nodeA);
-                    // Checking the relations, if relation and in same community then create in network.
-                    if (network_connections.containsKey(nodeB)) {
-                        StringBuilder create_node_query = new StringBuilder();
-                        try (Session session = driver.session()) {
-                            /**
-                             * Adding details of nodeA in the query.
-                             */
-                            String labelA = String.valueOf(nodeA.labels());
-                            labelA= labelA.replace("[", "").replace("]","").replace(",","").replace(" ","");
-                            create_node_query.append("MERGE (nA:").append(labelA.trim()).append(" {");
-                            for (String key : nodeA.keys()) {
-                                try {
-                                    //Used to throw an exception whenever we are dealing with dates.
-                                    nodeA.get(key).asString();
-                                    create_node_query.append(key.trim()).append(" : ").append(nodeA.get(key)).append(" ,");
-                                }
-                                catch (org.neo4j.driver.exceptions.value.Uncoercible e) {
-                                    // Injecting manually '' to convert Date to String without changing values.
-                                    create_node_query.append(key.trim()).append(" : '").append(nodeA.get(key)).append("' ,");
-                                }
-                            }
-                            create_node_query.deleteCharAt(create_node_query.length()-1);
-                            create_node_query.append("}) ");
+                    for (Map.Entry<Node, Relationship> connection : network_connections.entrySet()) {
+                        Node nodeB = connection.getKey();
+                        // Checking the relations, if relation and in same community then create in network.
+                        if (is_first_side(nodeA, nodeB) && community_nodes.contains(nodeB)) {
+                            Relationship relation = connection.getValue();
+                            create_index(session, nodeA);
+                            create_index(session, nodeB);
 
                             /**
-                             * Adding details of nodeB in the query
+                             * The statement only depends on the labels and the relationship type, the node IDs and
+                             * properties are parameters. Dates and other types are sent as they are by the driver.
                              */
-                            String labelB = String.valueOf(nodeB.labels());
-                            labelB= labelB.replace("[", "").replace("]","").replace(",","").replace(" ","");
-                            create_node_query.append("MERGE (nB:").append(labelB.trim()).append(" {");
-                            for (String key : nodeB.keys()) {
-                                try {
-                                    //Used to throw an exception whenever we are dealing with dates.
-                                    nodeB.get(key).asString();
-                                    create_node_query.append(key.trim()).append(" : ").append(nodeB.get(key)).append(" ,");
-                                }
-                                catch (org.neo4j.driver.exceptions.value.Uncoercible e) {
-                                    // Injecting manually '' to convert Date to String without changing values.
-                                    create_node_query.append(key.trim()).append(" : '").append(nodeB.get(key)).append("' ,");
-                                }
-                            }
-                            create_node_query.deleteCharAt(create_node_query.length()-1);
-                            create_node_query.append("}) ");
+                            String statement = edge_statement(cypher_labels(nodeA), relation.type(), cypher_labels(nodeB));
+                            Value parameters = parameters(
+                                    "a", nodeA.id(), "propsA", nodeA.asMap(),
+                                    "b", nodeB.id(), "propsB", nodeB.asMap());
+                            session.writeTransaction(tx -> tx.run(statement, parameters).consume());
+                        }
+                    }
+                }
+            }
+        }
+    }
 
-                            /**
-                             * Adding relationship in the query
-                             */
-                            Relationship relation = network_connections.get(nodeB);
-                            create_node_query.append("WITH nA, nB MERGE (nA) - [r:").append(relation.type()).append("] - (nB)");
-
-
-                            // Used print to see the query construction is appropriate.
-                            //System.out.println(create_node_query);
-                            String greeting = session.writeTransaction(new TransactionWork<String>() {
-                                @Override
-                                public String execute(Transaction tx) {
-                                    Result result = tx.run(String.valueOf(create_node_query));
-                                    return "New Node";
-                                }
-                            });
+    /**
+     * The graph is undirected, so every relation is stored in the map of both of its nodes. A relation is written only
+     * when it is seen from the node with the smaller ID, so it is written exactly once.
+     */
+    private static boolean is_first_side(Node nodeA, Node nodeB) {
+        return nodeA.id() <= nodeB.id();
+    }
+
+    /**
+     * Batched version of projectNodesVisualLPA. Instead of one transaction per relation, nodes and relations are
+     * collected in chunks of batch_size rows and every chunk is sent as one parameterised UNWIND ... MERGE statement,
+     * all in a single session.
+     * Labels and relationship types cannot be parameters in cypher, so there is one chunk (and one statement) for each
+     * combination of labels / relationship type. Nodes are merged on their source ID and get all their properties.
+     * All the nodes are written before the relations, so every relation finds both of its nodes.
+     * @param batch_size = Number of nodes or relations sent in one statement.
+     */
+    public void projectNodesVisualBatched(int batch_size) {
+        await_clearing();
+        if (batch_size < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1 but was " + batch_size);
+        long start = System.nanoTime();
+        long nodes_written;
+        long relations_written;
+
+        try (Session session = open_session()) {
+            create_indexes(session);
+            nodes_written = write_nodes(session, resultantSet.keySet(), batch_size);
+            relations_written = write_relations(session, resultantSet.keySet(), batch_size);
+        }
+        print_throughput(start, nodes_written, relations_written);
+    }
+
+    /**
+     * Parallel version of projectNodesVisualBatched. The communities are split in partitions of about the same number
+     * of nodes and every partition is written by its own session, on a pool of at most (sessions) threads (see IoThreads).
+     * All the partitions write their nodes first and only when every node exists the relations are written. MERGE of a
+     * relation locks both of its nodes, so creating nodes and relations at the same time makes threads wait for each
+     * other and can deadlock. Communities do not share nodes, so after that the partitions never touch the same data.
+     * Deadlocks and other transient errors that still happen are retried with exponential backoff.
+     * @param batch_size = Number of nodes or relations sent in one statement.
+     * @param sessions = Number of sessions writing at the same time.
+     */
+    public void projectNodesVisualParallel(int batch_size, int sessions) {
+        await_clearing();
+        if (batch_size < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1 but was " + batch_size);
+        if (sessions < 1)
+            throw new IllegalArgumentException("Number of sessions must be at least 1 but was " + sessions);
+        long start = System.nanoTime();
+
+        try (Session session = open_session()) {
+            create_indexes(session);
+        }
+
+        List<List<Integer>> partitions = partition(sessions);
+        // One platform thread per partition, or one virtual thread per partition in the VIRTUAL mode of IoThreads.
+        ExecutorService pool = IoThreads.executor("writeback", partitions.size());
+        try {
+            long nodes_written = run_partitions(pool, partitions, (session, communities) -> write_nodes(session, communities, batch_size));
+            long relations_written = run_partitions(pool, partitions, (session, communities) -> write_relations(session, communities, batch_size));
+            print_throughput(start, nodes_written, relations_written);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * In place writeback. Instead of deleting a database and copying every node and relation with all their
+     * properties, only the community ID and the degree centrality inside the community are set on the nodes that
+     * already exist in the source database, looked up by their ID. A run writes a few bytes per node.
+     * Every written node also gets the InCommunity label and the ID of the run. Once the run is written, the IDs of the
+     * nodes of the label that still have an older run are read once and their values are removed by ID, so nodes that
+     * are no longer in a community do not keep old ones. That clearing only reads the nodes of the label (the
+     * communities of the previous run), not the whole database. If the run stops before, nothing old is removed.
+     * Must be used with a VisualGraph connected to the source database and created with clear = false.
+     * @param batch_size = Number of nodes updated in one statement.
+     */
+    public void projectLabelsInPlace(int batch_size) {
+        await_clearing();
+        if (batch_size < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1 but was " + batch_size);
+        long start = System.nanoTime();
+        long nodes_written = 0;
+        long run = System.currentTimeMillis();
+
+        try (Session session = open_session()) {
+            String update = "UNWIND $rows AS row MATCH (n) WHERE id(n) = row.id " +
+                    "SET n:" + COMMUNITY_LABEL + ", n." + COMMUNITY_PROPERTY + " = row.community, n." + CENTRALITY_PROPERTY +
+                    " = row.centrality, n." + RUN_PROPERTY + " = " + run;
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Integer community : resultantSet.keySet()) {
+                Set<Node> community_nodes = resultantSet.get(community);
+                for (Node node : community_nodes) {
+                    // Degree centrality inside the community, the same value DegreeCentrality ranks the nodes with.
+                    long degree = 0;
+                    for (Node neighbour : nodeRelations.get(node).keySet()) {
+                        if (community_nodes.contains(neighbour))
+                            degree++;
+                    }
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("id", node.id());
+                    row.put("community", community);
+                    row.put("centrality", degree);
+                    rows.add(row);
+                    if (rows.size() >= batch_size) {
+                        nodes_written += write_batch(session, update, rows);
+                        rows = new ArrayList<>();
+                    }
+                }
+            }
+            nodes_written += write_batch(session, update, rows);
+
+            // Removing the values of the previous runs: the IDs are read once from the label, then removed by ID in
+            // chunks so the transaction state stays small.
+            String stale = "MATCH (n:" + COMMUNITY_LABEL + ") WHERE n." + RUN_PROPERTY + " IS NULL OR n." + RUN_PROPERTY + " <> $run " +
+                    "RETURN id(n) AS id";
+            List<Record> stale_nodes = session.readTransaction(tx -> tx.run(stale, parameters("run", run)).list());
+            String remove = "UNWIND $rows AS row MATCH (n) WHERE id(n) = row.id " +
+                    "REMOVE n:" + COMMUNITY_LABEL + ", n." + COMMUNITY_PROPERTY + ", n." + CENTRALITY_PROPERTY + ", n." + RUN_PROPERTY;
+            rows = new ArrayList<>();
+            for (Record stale_node : stale_nodes) {
+                rows.add(Collections.singletonMap("id", stale_node.get("id").asLong()));
+                if (rows.size() >= batch_size) {
+                    write_batch(session, remove, rows);
+                    rows = new ArrayList<>();
+                }
+            }
+            write_batch(session, remove, rows);
+            if (!stale_nodes.isEmpty())
+                Reporter.message(Reporter.Verbosity.SUMMARY, "Removed the communities of a previous run from " + stale_nodes.size() + " nodes");
+        }
+        print_throughput(start, nodes_written, 0);
+    }
+
+    /**
+     * Work that one partition does with its own session.
+     */
+    private interface PartitionWriter {
+        long write(Session session, List<Integer> communities);
+    }
+
+    /**
+     * Method that runs the writer on every partition at the same time and waits until all of them have finished.
+     * @return Total number of rows written.
+     */
+    private long run_partitions(ExecutorService pool, List<List<Integer>> partitions, PartitionWriter writer) {
+        List<Future<Long>> results = new ArrayList<>();
+        for (List<Integer> communities : partitions) {
+            results.add(pool.submit(() -> {
+                try (Session session = open_session()) {
+                    return writer.write(session, communities);
+                }
+            }));
+        }
+        long written = 0;
+        try {
+            for (Future<Long> result : results)
+                written += result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Writeback was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Writeback of a partition failed", e.getCause());
+        }
+        return written;
+    }
+
+    /**
+     * Method that splits the communities in (count) partitions. Largest communities go first, each one to the partition
+     * with the fewest nodes so far, so every session gets about the same work.
+     */
+    private List<List<Integer>> partition(int count) {
+        List<Integer> communities = new ArrayList<>(resultantSet.keySet());
+        communities.sort((one, two) -> Integer.compare(resultantSet.get(two).size(), resultantSet.get(one).size()));
+        count = Math.max(1, Math.min(count, communities.size()));
+
+        List<List<Integer>> partitions = new ArrayList<>();
+        long[] load = new long[count];
+        for (int i = 0; i < count; i++)
+            partitions.add(new ArrayList<>());
+        for (Integer community : communities) {
+            int lightest = 0;
+            for (int i = 1; i < count; i++) {
+                if (load[i] < load[lightest])
+                    lightest = i;
+            }
+            partitions.get(lightest).add(community);
+            load[lightest] += resultantSet.get(community).size();
+        }
+        return partitions;
+    }
+
+    /**
+     * Create all nodes of the given Communities in chunks, grouped by their labels.
+     * @return Number of nodes written.
+     */
+    private long write_nodes(Session session, Collection<Integer> communities, int batch_size) {
+        long nodes_written = 0;
+        Map<String, List<Map<String, Object>>> node_batches = new HashMap<>();
+        for (Integer community : communities) {
+            for (Node node : resultantSet.get(community)) {
+                String labels = cypher_labels(node);
+                List<Map<String, Object>> rows = node_batches.get(labels);
+                if (rows == null) {
+                    rows = new ArrayList<>();
+                    node_batches.put(labels, rows);
+                }
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", node.id());
+                row.put("props", node.asMap());
+                rows.add(row);
+                if (rows.size() >= batch_size) {
+                    nodes_written += write_batch(session, node_statement(labels), rows);
+                    node_batches.put(labels, new ArrayList<>());
+                }
+            }
+        }
+        for (Map.Entry<String, List<Map<String, Object>>> rows : node_batches.entrySet())
+            nodes_written += write_batch(session, node_statement(rows.getKey()), rows.getValue());
+        return nodes_written;
+    }
+
+    /**
+     * Create all relations inside the given Communities in chunks, grouped by labels of both nodes and relationship type.
+     * @return Number of relations written.
+     */
+    private long write_relations(Session session, Collection<Integer> communities, int batch_size) {
+        long relations_written = 0;
+        Map<List<String>, List<Map<String, Object>>> relation_batches = new HashMap<>();
+        for (Integer community : communities) {
+            Set<Node> community_nodes = resultantSet.get(community);
+            // Each member's relations are visited once, and each relation is kept from one side only.
+            for (Node nodeA : community_nodes) {
+                for (Map.Entry<Node, Relationship> connection : nodeRelations.get(nodeA).entrySet()) {
+                    Node nodeB = connection.getKey();
+                    if (is_first_side(nodeA, nodeB) && community_nodes.contains(nodeB)) {
+                        Relationship relation = connection.getValue();
+                        List<String> group = Arrays.asList(cypher_labels(nodeA), relation.type(), cypher_labels(nodeB));
+                        List<Map<String, Object>> rows = relation_batches.get(group);
+                        if (rows == null) {
+                            rows = new ArrayList<>();
+                            relation_batches.put(group, rows);
+                        }
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("a", nodeA.id());
+                        row.put("b", nodeB.id());
+                        rows.add(row);
+                        if (rows.size() >= batch_size) {
+                            relations_written += write_batch(session, relation_statement(group), rows);
+                            relation_batches.put(group, new ArrayList<>());
                         }
                     }
                 }
             }
         }
+        for (Map.Entry<List<String>, List<Map<String, Object>>> rows : relation_batches.entrySet())
+            relations_written += write_batch(session, relation_statement(rows.getKey()), rows.getValue());
+        return relations_written;
+    }
+
+    private void print_throughput(long start, long nodes_written, long relations_written) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Projected " + nodes_written + " nodes and " + relations_written + " relations in " + seconds + " s ("
+                + (relations_written / Math.max(seconds, 1e-9)) + " relations/sec)");
+    }
+
+    /**
+     * Method that sends one chunk of rows in its own write transaction. Transient errors (deadlocks, lock timeouts)
+     * are retried up to MAX_RETRIES times, waiting twice as long after every failure. The transaction is an explicit
+     * one (beginTransaction), because writeTransaction already retries on its own for up to 30 seconds, and both
+     * together would retry inside every retry.
+     * @return Number of rows written.
+     */
+    private int write_batch(Session session, String statement, List<Map<String, Object>> rows) {
+        if (rows.isEmpty())
+            return 0;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                // Rolled back when it is closed without a commit.
+                try (Transaction tx = session.beginTransaction()) {
+                    tx.run(statement, parameters("rows", rows)).consume();
+                    tx.commit();
+                }
+                return rows.size();
+            } catch (TransientException e) {
+                if (attempt >= MAX_RETRIES)
+                    throw e;
+                // Random part so the threads that deadlocked together do not retry at the same moment.
+                long backoff = (INITIAL_BACKOFF_MS << attempt) + ThreadLocalRandom.current().nextLong(INITIAL_BACKOFF_MS);
+                Reporter.message(Reporter.Verbosity.SUMMARY, "Transient error, retrying batch in " + backoff + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Index on the source ID of every first label of the projected nodes, created before any node is written.
+     */
+    private void create_indexes(Session session) {
+        for (Set<Node> community : resultantSet.values()) {
+            for (Node node : community)
+                create_index(session, node);
+        }
+    }
+
+    /**
+     * Index on the source ID of the first label of the node, so the relations find their nodes without a label scan.
+     */
+    private void create_index(Session session, Node node) {
+        Iterator<String> labels = node.labels().iterator();
+        if (labels.hasNext()) {
+            String label = labels.next();
+            if (indexed_labels.add(label))
+                session.run("CREATE INDEX IF NOT EXISTS FOR (n" + cypher_label(label) + ") ON (n." + SOURCE_ID + ")").consume();
+        }
+    }
+
+    /**
+     * Statement that merges one relation and both of its nodes, used by projectNodesVisualLPA.
+     */
+    private String edge_statement(String labelsA, String type, String labelsB) {
+        return statements.computeIfAbsent("edge" + labelsA + "|" + type + "|" + labelsB, key ->
+                "MERGE (nA" + labelsA + " {" + SOURCE_ID + ": $a}) SET nA += $propsA " +
+                "MERGE (nB" + labelsB + " {" + SOURCE_ID + ": $b}) SET nB += $propsB " +
+                "MERGE (nA) - [r" + cypher_label(type) + "] - (nB)");
+    }
+
+    /**
+     * Statement that merges a chunk of nodes with the same labels, used by the batched modes.
+     */
+    private String node_statement(String labels) {
+        return statements.computeIfAbsent("nodes" + labels, key ->
+                "UNWIND $rows AS row MERGE (n" + labels + " {" + SOURCE_ID + ": row.id}) SET n += row.props");
+    }
+
+    /**
+     * Statement that merges a chunk of relations, used by the batched modes.
+     * @param group = Labels of nodeA, relationship type and labels of nodeB.
+     */
+    private String relation_statement(List<String> group) {
+        return statements.computeIfAbsent("relations" + String.join("|", group), key ->
+                "UNWIND $rows AS row " +
+                "MATCH (nA" + group.get(0) + " {" + SOURCE_ID + ": row.a}) " +
+                "MATCH (nB" + group.get(2) + " {" + SOURCE_ID + ": row.b}) " +
+                "MERGE (nA) - [r" + cypher_label(group.get(1)) + "] - (nB)");
+    }
+
+    /**
+     * @return The labels of the node in cypher form, for example :Datapoint:Ratio
+     */
+    private static String cypher_labels(Node node) {
+        StringBuilder labels = new StringBuilder();
+        for (String label : node.labels())
+            labels.append(cypher_label(label));
+        return labels.toString();
+    }
+
+    /**
+     * Labels and types are quoted with backticks, so names with spaces or symbols do not break the statement.
+     */
+    private static String cypher_label(String label) {
+        return ":`" + label.replace("`", "``") + "`";
     }
 
     /**
@@ -146,19 +575,55 @@ public class VisualGraph implements AutoCloseable {
      * Result is a fresh new database with nothing in it for us to append the new projected knowledge graph.
      */
     private void deletePrevious() {
-        try ( Session session = driver.session() )
+        try ( Session session = open_session() )
         {
-            String delete = session.writeTransaction( new TransactionWork<String>()
-            {
-                @Override
-                public String execute( Transaction tx )
-                {
-                    Result result = tx.run( "MATCH (n)\n" +
-                                    "DETACH DELETE n");
-                    return "DELETED DATA";
-                }
-            } );
-            System.out.println( delete );
+            delete_in_chunks(session, DELETE_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Deleting everything in one transaction keeps the whole previous projection in the transaction memory, so the
+     * nodes are deleted in chunks of batch_size, one transaction each, until the database is empty.
+     */
+    private static void delete_in_chunks(Session session, int batch_size) {
+        long total = 0;
+        long deleted;
+        do {
+            deleted = session.writeTransaction(tx -> tx.run("MATCH (n) WITH n LIMIT $limit DETACH DELETE n RETURN count(*) AS deleted",
+                    parameters("limit", batch_size)).single().get("deleted").asLong());
+            total += deleted;
+        } while (deleted > 0);
+        Reporter.message(Reporter.Verbosity.SUMMARY, "DELETED DATA (" + total + " nodes)");
+    }
+
+    /**
+     * Method that clears the projection database on a background thread, so it can run while the pipeline is still
+     * analysing the graph. The returned future is given to the VisualGraph constructor, which waits for it before
+     * writing anything.
+     * @param database = Name of the database to clear, null for the default database of the server.
+     * @param batch_size = Number of nodes deleted in one transaction.
+     * @return Future that completes when the database is empty.
+     */
+    public static CompletableFuture<Void> deletePreviousAsync(String host, String username, String password, String database, int batch_size) {
+        return IoThreads.supplyAsync("projection-clear", () -> {
+            try (Driver clear_driver = GraphDatabase.driver(host, AuthTokens.basic(username, password));
+                 Session session = database == null ? clear_driver.session() : clear_driver.session(SessionConfig.forDatabase(database))) {
+                delete_in_chunks(session, batch_size);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Waits until the background clearing (if any) has finished.
+     */
+    private void await_clearing() {
+        if (clearing == null)
+            return;
+        try {
+            clearing.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Clearing the projection database failed", e.getCause());
         }
     }
 
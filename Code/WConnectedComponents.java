@@ -4,8 +4,6 @@
  * Importing neo4j driver packages and Collection data structures packages.
  */
 
-import org.neo4j.driver.Record;
-import org.neo4j.driver.Value;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 
@@ -28,7 +26,7 @@ public class WConnectedComponents {
      *                  because the value of the nodes will never change (as a list).
      */
     private int clusterSize;
-    private final List<Record> involved_nodes;
+    private final List<Node> involved_nodes;
     private Map<Node, Map<Node, Relationship>> nodeRelations;
     private Map<Integer, Set<Node>> resultantSet;
 
@@ -38,17 +36,23 @@ public class WConnectedComponents {
      */
     private  ArrayList<Node> degreeCentrality;
 
-    /**
-     * Creating a StringBuilder to save space on Java printing and having more space to show important
-     * results.
-     */
-    private StringBuilder community_printer;
+    // Number of the community in the printed results.
     private int community_counter;
+    // False to only find the components, without the Degree, PageRank and Betweenness of each one (benchmarks).
+    private final boolean community_centrality;
 
     /**
      * Constructor of the class. Values will be initialized here and the appropriate methods will be applied.
      */
-    public WConnectedComponents(List<Record> involved_nodes,  Map<Node, Map<Node, Relationship>> nodeRelations){
+    public WConnectedComponents(List<Node> involved_nodes,  Map<Node, Map<Node, Relationship>> nodeRelations){
+        this(involved_nodes, nodeRelations, true);
+    }
+
+    /**
+     * Same as above, community_centrality = false only finds the components, without their centralities.
+     */
+    public WConnectedComponents(List<Node> involved_nodes,  Map<Node, Map<Node, Relationship>> nodeRelations, boolean community_centrality){
+        this.community_centrality = community_centrality;
         // initializing the value of the list of nodes.
         this.involved_nodes = involved_nodes;
         this.nodeRelations = nodeRelations;
@@ -72,12 +76,8 @@ public class WConnectedComponents {
         HashMap<Node, Boolean> mapUsed = new HashMap<>();
 
         // Loop through all the nodes involved in graph to add in Map.
-        for (Record node : involved_nodes) {
-            // Index Node's data.
-            Value rec = node.get("n");
-
+        for (Node key : involved_nodes) {
             // Using node's ID to give value false-> NOT visited yet.
-            Node key = rec.asNode();
             mapUsed.put(key, false);
         }
         // Return the Map to apply the Algorithm
@@ -97,14 +97,9 @@ public class WConnectedComponents {
         // ID of the community counter.
         int communityUID = 0;
         // Loop through all the nodes involved.
-        for (Record node : involved_nodes) {
+        for (Node key : involved_nodes) {
             communityUID++;
 
-            // Index the specific node record
-            Value rec = node.get("n");
-            // Get the nodes ID
-            Node key = rec.asNode();
-
             /**
              * Initialize the beginning state of each Set of nodes for each new community trying to be detected.
              */
@@ -115,25 +110,28 @@ public class WConnectedComponents {
             if (!connected_by_visit.get(key)) {
                 // Define we are applying a Community detection result.
                 community_counter++;
-                community_printer = new StringBuilder(community_counter + " - Community Detection===================================================== \n");
                 // If not visited, then the community size is 1 (for now)
                 clusterSize = 1;
-                // Print statements to have a clearer result for the user.
-                community_printer.append("Community of Relations ");
 
                 // Call to the recursive function to identify all nodes in community.
                 FindCommunity(key, connected_by_visit, communityUID);
 
-                // Print statements to have a clearer result for the user.
-                community_printer.append("\n");
                 // Only if a cluster is a community and not a signle node, print results to preview
                 if (clusterSize > 1) {
-                    community_printer.append("Cluster Size is : " + clusterSize);
-                    // Print the StringBuilder.
-                    System.out.println(community_printer);
-
-                    // Call the centrality algorithm to calculate influence of each node.
-                    new DegreeCentrality(degreeCentrality, nodeRelations);
+                    // The nodes of the community are the ones collected for the centrality.
+                    Reporter.community(community_counter, communityUID, degreeCentrality);
+
+                    if (community_centrality) {
+                        try (PipelineMetrics.Stage stage = PipelineMetrics.stage("centrality")) {
+                            // Call the centrality algorithm to calculate influence of each node.
+                            new DegreeCentrality(degreeCentrality, nodeRelations);
+                            // PageRank also considers how important the neighbours of a node are.
+                            new PageRankCentrality(degreeCentrality, nodeRelations);
+                            // Betweenness finds the broker nodes that bridge the parts of the community.
+                            new BetweennessCentrality(degreeCentrality, nodeRelations);
+                            stage.items(degreeCentrality.size());
+                        }
+                    }
                 }
                 else {
                     // Removing clusters of smaller size than 1 from the resultant dataset.
@@ -168,8 +166,6 @@ public class WConnectedComponents {
          */
         // Updating the node visited status.
         connected_by_relation.put(node_in_line, true);
-        // Print statements to have a clearer result for the user.
-        community_printer.append(node_in_line.id() + " ");
 
         // New node in community added in centrality to calculate the number of nodes related.
         degreeCentrality.add(node_in_line);
@@ -190,6 +186,46 @@ public class WConnectedComponents {
         }
     }
 
+    /**
+     * Weakly Connected Components over a primitive graph (CompactGraph or OffHeapGraph), with a breadth first search
+     * from every node that has no component yet. The components and the search queue are arrays of the graph's
+     * storage (newIntArray), so an off-heap graph uses no heap memory that grows with its size.
+     *
+     * @param graph = The graph, read through GraphStorage.
+     * @return The component of every dense node ID, components are numbered from 0.
+     */
+    public static IntArray components(GraphStorage graph) {
+        int n = graph.nodeCount();
+        IntArray component = graph.newIntArray(n);
+        IntArray queue = graph.newIntArray(n);
+        for (int v = 0; v < n; v++)
+            component.set(v, -1);
+
+        int component_count = 0;
+        for (int start = 0; start < n; start++) {
+            if (component.get(start) >= 0)
+                continue;
+            int head = 0;
+            int tail = 0;
+            queue.set(tail++, start);
+            component.set(start, component_count);
+            while (head < tail) {
+                int node = queue.get(head++);
+                long end = graph.offset(node + 1);
+                for (long i = graph.offset(node); i < end; i++) {
+                    int neighbour = graph.target(i);
+                    if (component.get(neighbour) < 0) {
+                        component.set(neighbour, component_count);
+                        queue.set(tail++, neighbour);
+                    }
+                }
+            }
+            component_count++;
+        }
+        Reporter.message(Reporter.Verbosity.SUMMARY, "Weakly Connected Components found " + component_count + " components in " + n + " nodes");
+        return component;
+    }
+
     /**
      * Getter method to obtain the Map of degreeCentrality.
      * @return Map with nodes and their relations in the degree centrality.
@@ -0,0 +1,21 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar. Takes the usual JMH command line options and always adds the gc profiler,
+ * so the allocation rate (gc.alloc.rate and gc.alloc.rate.norm, bytes per operation) is reported with the throughput.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String... args) throws Exception {
+        CommandLineOptions command_line = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(command_line)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
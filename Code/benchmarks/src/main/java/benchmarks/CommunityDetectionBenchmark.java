@@ -0,0 +1,44 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Community detection algorithms of the pipeline, each on a fresh copy of the relations. Only the detection is
+ * measured, the centralities of every community are turned off (see DegreeCentralityBenchmark and PageRankBenchmark).
+ * components and propagation are the GraphStorage versions of WCC and Label Propagation, on the CompactGraph.
+ */
+public class CommunityDetectionBenchmark extends PipelineBenchmark {
+
+    // Maximum iterations of propagation, as in LocalGraphRunner.
+    private static final int LPA_ITERATIONS = 20;
+
+    @Benchmark
+    public Object connectedComponents(GraphState graph, GraphState.FreshRelations fresh) throws Throwable {
+        return Pipeline.connectedComponents(graph.node_list, fresh.node_relations);
+    }
+
+    @Benchmark
+    public Object labelPropagation(GraphState graph, GraphState.FreshRelations fresh) throws Throwable {
+        return Pipeline.labelPropagation(graph.node_list, fresh.node_relations);
+    }
+
+    @Benchmark
+    public Object biasIntroduced(GraphState graph, GraphState.FreshRelations fresh) throws Throwable {
+        return Pipeline.biasIntroduced(graph.node_list, fresh.node_relations, graph.bias_nodes);
+    }
+
+    @Benchmark
+    public Object onlyBias(GraphState graph, GraphState.FreshRelations fresh) throws Throwable {
+        return Pipeline.onlyBias(graph.node_list, fresh.node_relations, graph.bias_nodes);
+    }
+
+    @Benchmark
+    public Object components(GraphState.Compact compact) throws Throwable {
+        return Pipeline.components(compact.graph);
+    }
+
+    @Benchmark
+    public Object propagation(GraphState.Compact compact) throws Throwable {
+        return Pipeline.propagate(compact.graph, LPA_ITERATIONS, GraphState.SEED);
+    }
+}
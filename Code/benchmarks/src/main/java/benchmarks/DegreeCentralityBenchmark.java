@@ -0,0 +1,36 @@
+package benchmarks;
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Degree centrality of the whole graph taken as one community.
+ */
+public class DegreeCentralityBenchmark extends PipelineBenchmark {
+
+    @State(Scope.Thread)
+    public static class Community {
+
+        ArrayList<Node> members;
+        Map<Node, Map<Node, Relationship>> node_relations;
+
+        @Setup(Level.Trial)
+        public void build(GraphState graph) throws Throwable {
+            members = new ArrayList<>(graph.node_list);
+            node_relations = Pipeline.nodeRelations(graph.source);
+        }
+    }
+
+    @Benchmark
+    public Object degreeCentrality(Community community) throws Throwable {
+        return Pipeline.degreeCentrality(community.members, community.node_relations);
+    }
+}
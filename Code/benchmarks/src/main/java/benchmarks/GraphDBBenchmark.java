@@ -0,0 +1,14 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Construction of the adjacency map (GraphDB) from the edges of the source.
+ */
+public class GraphDBBenchmark extends PipelineBenchmark {
+
+    @Benchmark
+    public Object construction(GraphState graph) throws Throwable {
+        return Pipeline.graphDB(graph.source);
+    }
+}
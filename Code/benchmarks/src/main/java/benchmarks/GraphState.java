@@ -0,0 +1,102 @@
+package benchmarks;
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic graph shared by the benchmarks, generated once per trial with a fixed seed so every run and every
+ * algorithm sees the same graph.
+ *
+ * model = erdos-renyi, power-law or planted-partition (see SyntheticGraphSource).
+ * nodes, degree = Size and average degree of the graph.
+ * exponent = Exponent of the power-law degree distribution.
+ * communities, mixing = Planted communities and fraction of the edges that leave them.
+ * bias_fraction = Fraction of the nodes given to the bias variants of Label Propagation as biased nodes.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    static final long SEED = 42;
+
+    @Param({"erdos-renyi", "power-law", "planted-partition"})
+    public String model;
+
+    @Param({"10000"})
+    public int nodes;
+
+    @Param({"8"})
+    public double degree;
+
+    @Param({"2.5"})
+    public double exponent;
+
+    @Param({"20"})
+    public int communities;
+
+    @Param({"0.1"})
+    public double mixing;
+
+    @Param({"0.01"})
+    public double bias_fraction;
+
+    // SyntheticGraphSource of the graph.
+    Object source;
+    List<Node> node_list;
+    // BiasSet of the biased nodes, it is only read by the algorithms so it is shared.
+    Object bias_nodes;
+
+    @Setup(Level.Trial)
+    public void generate() throws Throwable {
+        Pipeline.quiet();
+        source = Pipeline.synthetic(model, nodes, degree, exponent, communities, mixing, SEED);
+        node_list = Pipeline.nodes(source);
+
+        Random random = new Random(SEED);
+        Set<Node> flagged = new HashSet<>();
+        for (Node node : node_list) {
+            if (random.nextDouble() < bias_fraction)
+                flagged.add(node);
+        }
+        bias_nodes = Pipeline.biasSet(flagged, source);
+    }
+
+    /**
+     * CompactGraph of the source, built from its edges once per trial. The algorithms on it do not change it.
+     */
+    @State(Scope.Benchmark)
+    public static class Compact {
+
+        Object graph;
+
+        @Setup(Level.Trial)
+        public void build(GraphState graph) throws Throwable {
+            this.graph = Pipeline.compactGraph(graph.source);
+        }
+    }
+
+    /**
+     * Relations built again before every invocation, because Label Propagation removes nodes from the map it is given.
+     * Building them is not measured.
+     */
+    @State(Scope.Thread)
+    public static class FreshRelations {
+
+        Map<Node, Map<Node, Relationship>> node_relations;
+
+        @Setup(Level.Invocation)
+        public void build(GraphState graph) throws Throwable {
+            node_relations = Pipeline.nodeRelations(graph.source);
+        }
+    }
+}
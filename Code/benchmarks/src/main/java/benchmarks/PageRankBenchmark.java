@@ -0,0 +1,15 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Parallel PageRank (PageRankCentrality) of the whole graph, on its CompactGraph. One operation runs until the scores
+ * converge or DEFAULT_MAX_ITER iterations.
+ */
+public class PageRankBenchmark extends PipelineBenchmark {
+
+    @Benchmark
+    public Object pageRank(GraphState.Compact compact) throws Throwable {
+        return Pipeline.pageRank(compact.graph);
+    }
+}
@@ -0,0 +1,191 @@
+package benchmarks;
+
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Access to the pipeline classes for the benchmarks.
+ * The pipeline classes are in the default package, which cannot be imported from a named package, and JMH does not
+ * accept benchmarks in the default package. So the constructors and methods are looked up once by name and kept as
+ * constant MethodHandles, which the JIT inlines like a direct call.
+ */
+final class Pipeline {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodHandle ERDOS_RENYI = method("SyntheticGraphSource", "erdosRenyi", int.class, double.class, long.class);
+    private static final MethodHandle POWER_LAW = method("SyntheticGraphSource", "powerLaw", int.class, double.class, double.class, long.class);
+    private static final MethodHandle PLANTED_PARTITION = method("SyntheticGraphSource", "plantedPartition", int.class, double.class, int.class, double.class, long.class);
+    private static final MethodHandle NODES = method("GraphSource", "nodes");
+    private static final MethodHandle GRAPH_DB = method("GraphSource", "graphDB");
+    private static final MethodHandle COMPACT = method("GraphSource", "compact");
+
+    private static final MethodHandle NODE_RELATIONS = method("GraphDB", "getNodeRelations");
+    private static final MethodHandle WCC = constructor("WConnectedComponents", List.class, Map.class, boolean.class);
+    private static final MethodHandle COMPONENTS = method("WConnectedComponents", "components", type("GraphStorage"));
+    private static final MethodHandle PROPAGATE = method("LabelPropagation", "propagate", type("GraphStorage"), int.class, long.class);
+    private static final MethodHandle LABEL_PROPAGATION = constructor("LabelPropagation", List.class, Map.class);
+    private static final MethodHandle COMPACT_GRAPH = method("CompactGraph", "fromNodeRelations", Collection.class, Map.class);
+    private static final MethodHandle BIAS_SET = constructor("BiasSet", Iterable.class, type("CompactGraph"));
+    private static final MethodHandle BIAS_INTRODUCED = constructor("BiasIntroduced", List.class, Map.class, type("BiasSet"));
+    private static final MethodHandle ONLY_BIAS = constructor("OnlyBias", List.class, Map.class, type("BiasSet"));
+    private static final MethodHandle FIND_COMMUNITIES = method("LabelPropagation", "find_labelPropagation_communities");
+    private static final MethodHandle SET_CENTRALITY = method("LabelPropagation", "setCommunity_centrality", boolean.class);
+    private static final MethodHandle DEGREE_CENTRALITY = constructor("DegreeCentrality", ArrayList.class, Map.class);
+    private static final MethodHandle PAGE_RANK = constructor("PageRankCentrality", type("CompactGraph"), double.class, double.class, int.class, boolean.class);
+    private static final MethodHandle CONFIGURE_REPORT = method("Reporter", "configure", type("Reporter$Verbosity"), Path.class);
+
+    private Pipeline() {
+    }
+
+    /**
+     * Method that turns off the reporting of the algorithms, so the benchmarks do not measure the console.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void quiet() throws Throwable {
+        Class verbosity = type("Reporter$Verbosity");
+        CONFIGURE_REPORT.invoke(Enum.valueOf(verbosity, "QUIET"), (Path) null);
+    }
+
+    /**
+     * @return The GraphSource of a synthetic graph, see SyntheticGraphSource.
+     */
+    static Object synthetic(String model, int nodes, double degree, double exponent, int communities, double mixing, long seed) throws Throwable {
+        switch (model) {
+            case "erdos-renyi":
+                return ERDOS_RENYI.invoke(nodes, degree, seed);
+            case "power-law":
+                return POWER_LAW.invoke(nodes, degree, exponent, seed);
+            case "planted-partition":
+                return PLANTED_PARTITION.invoke(nodes, degree, communities, mixing, seed);
+            default:
+                throw new IllegalArgumentException("Unknown graph model " + model);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Node> nodes(Object source) throws Throwable {
+        return (List<Node>) NODES.invoke(source);
+    }
+
+    static Object graphDB(Object source) throws Throwable {
+        return GRAPH_DB.invoke(source);
+    }
+
+    /**
+     * @return The adjacency map of a new GraphDB of the source (GraphDB keeps it in a static field).
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Node, Map<Node, Relationship>> nodeRelations(Object source) throws Throwable {
+        GRAPH_DB.invoke(source);
+        return (Map<Node, Map<Node, Relationship>>) NODE_RELATIONS.invoke();
+    }
+
+    /**
+     * The community detection methods below only find the communities: the Degree, PageRank and Betweenness of every
+     * community (printCommunities) are turned off, they are measured on their own.
+     */
+    static Object connectedComponents(List<Node> nodes, Map<Node, Map<Node, Relationship>> node_relations) throws Throwable {
+        return WCC.invoke(nodes, node_relations, false);
+    }
+
+    static Object labelPropagation(List<Node> nodes, Map<Node, Map<Node, Relationship>> node_relations) throws Throwable {
+        return find_communities(LABEL_PROPAGATION.invoke(nodes, node_relations));
+    }
+
+    /**
+     * @return The BiasSet of the flagged nodes that are in the graph, over the CompactGraph of all the nodes (built
+     * from GraphDB, so it has the Node of every dense ID).
+     */
+    static Object biasSet(Set<Node> flagged, Object source) throws Throwable {
+        Map<Node, Map<Node, Relationship>> node_relations = nodeRelations(source);
+        return BIAS_SET.invoke(flagged, COMPACT_GRAPH.invoke(node_relations.keySet(), node_relations));
+    }
+
+    /**
+     * @return The CompactGraph of the source, built straight from its edges.
+     */
+    static Object compactGraph(Object source) throws Throwable {
+        return COMPACT.invoke(source);
+    }
+
+    static Object biasIntroduced(List<Node> nodes, Map<Node, Map<Node, Relationship>> node_relations, Object bias) throws Throwable {
+        return find_communities(BIAS_INTRODUCED.invoke(nodes, node_relations, bias));
+    }
+
+    static Object onlyBias(List<Node> nodes, Map<Node, Map<Node, Relationship>> node_relations, Object bias) throws Throwable {
+        return find_communities(ONLY_BIAS.invoke(nodes, node_relations, bias));
+    }
+
+    private static Object find_communities(Object detector) throws Throwable {
+        SET_CENTRALITY.invoke(detector, false);
+        FIND_COMMUNITIES.invoke(detector);
+        return detector;
+    }
+
+    /**
+     * WConnectedComponents.components on a GraphStorage, the entry point for large graphs.
+     */
+    static Object components(Object graph) throws Throwable {
+        return COMPONENTS.invoke(graph);
+    }
+
+    /**
+     * LabelPropagation.propagate on a GraphStorage, the entry point for large graphs.
+     */
+    static Object propagate(Object graph, int max_iterations, long seed) throws Throwable {
+        return PROPAGATE.invoke(graph, max_iterations, seed);
+    }
+
+    static Object degreeCentrality(ArrayList<Node> nodes, Map<Node, Map<Node, Relationship>> node_relations) throws Throwable {
+        return DEGREE_CENTRALITY.invoke(nodes, node_relations);
+    }
+
+    /**
+     * PageRank of a CompactGraph with the default parameters of PageRankCentrality, without reporting the iterations.
+     */
+    static Object pageRank(Object graph) throws Throwable {
+        Class<?> page_rank = type("PageRankCentrality");
+        return PAGE_RANK.invoke(graph, page_rank.getField("DEFAULT_DAMPING").getDouble(null),
+                page_rank.getField("DEFAULT_TOLERANCE").getDouble(null), page_rank.getField("DEFAULT_MAX_ITER").getInt(null), false);
+    }
+
+    private static Class<?> type(String class_name) {
+        try {
+            return Class.forName(class_name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Pipeline class " + class_name + " not found", e);
+        }
+    }
+
+    private static MethodHandle method(String class_name, String name, Class<?>... parameters) {
+        try {
+            Method method = Class.forName(class_name).getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Pipeline method " + class_name + "." + name + " not found", e);
+        }
+    }
+
+    private static MethodHandle constructor(String class_name, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor = Class.forName(class_name).getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Pipeline constructor of " + class_name + " not found", e);
+        }
+    }
+}
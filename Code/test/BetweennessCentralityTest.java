@@ -0,0 +1,44 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing junit packages.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Exact betweenness of small graphs, against the number of shortest paths between other nodes that go through each
+ * node.
+ */
+public class BetweennessCentralityTest {
+
+    private static CompactGraph graph(int node_count, int[] sources, int[] destinations) {
+        return CompactGraph.fromEdges(node_count, sources, destinations, sources.length);
+    }
+
+    @Test
+    public void path() {
+        // 0 - 1 - 2 - 3 - 4
+        CompactGraph path = graph(5, new int[]{0, 1, 2, 3}, new int[]{1, 2, 3, 4});
+        double[] scores = new BetweennessCentrality(path, 0, 42).getScores();
+        assertArrayEquals(new double[]{0, 3, 4, 3, 0}, scores, 1e-9);
+    }
+
+    @Test
+    public void star() {
+        // Centre 0 and 5 leaves, every one of the 10 pairs of leaves goes through the centre.
+        CompactGraph star = graph(6, new int[]{0, 0, 0, 0, 0}, new int[]{1, 2, 3, 4, 5});
+        double[] scores = new BetweennessCentrality(star, 0, 42).getScores();
+        assertArrayEquals(new double[]{10, 0, 0, 0, 0, 0}, scores, 1e-9);
+    }
+
+    @Test
+    public void cycleSplitsThePaths() {
+        // 0 - 1 - 2 - 3 - 0, the two shortest paths between 0 and 2 (and 1 and 3) count half each.
+        CompactGraph cycle = graph(4, new int[]{0, 1, 2, 3}, new int[]{1, 2, 3, 0});
+        double[] scores = new BetweennessCentrality(cycle, 0, 42).getScores();
+        assertArrayEquals(new double[]{0.5, 0.5, 0.5, 0.5}, scores, 1e-9);
+    }
+}
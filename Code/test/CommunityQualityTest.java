@@ -0,0 +1,90 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, junit and Collection data structures packages.
+ */
+
+import org.junit.Test;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Metrics of CommunityQuality on two cliques joined by one relation, where they have a closed form.
+ *
+ * With two cliques of k nodes, m = k(k-1) + 1 relations. Every clique has k(k-1)/2 internal relations, 1 external
+ * relation and a volume of k(k-1) + 1 = m, so:
+ * modularity = 2 * ( k(k-1)/2 / m - (m / 2m)^2 ) = (m - 1) / m - 1/2
+ * coverage = (m - 1) / m
+ * conductance = 1 / min(m, 2m - m) = 1 / m
+ */
+public class CommunityQualityTest {
+
+    private static final int CLIQUE = 5;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Node, Map<Node, Relationship>> nodeRelations = new HashMap<>();
+    private long relationship_id;
+
+    private void relate(int a, int b) {
+        Node node_a = nodes.get(a);
+        Node node_b = nodes.get(b);
+        Relationship relation = new CompactRelationship(relationship_id++, a, b, (short) 0);
+        nodeRelations.get(node_a).put(node_b, relation);
+        nodeRelations.get(node_b).put(node_a, relation);
+    }
+
+    /**
+     * @return The communities of the two cliques, 1 and 2. The bridge goes from node 0 to node CLIQUE.
+     */
+    private Map<Integer, Set<Node>> two_cliques() {
+        for (int v = 0; v < 2 * CLIQUE; v++) {
+            Node node = new CompactNode(v, Collections.singletonList("Node"));
+            nodes.add(node);
+            nodeRelations.put(node, new HashMap<>());
+        }
+        for (int first = 0; first < 2 * CLIQUE; first += CLIQUE) {
+            for (int a = first; a < first + CLIQUE; a++) {
+                for (int b = a + 1; b < first + CLIQUE; b++)
+                    relate(a, b);
+            }
+        }
+        relate(0, CLIQUE);
+
+        Map<Integer, Set<Node>> communities = new HashMap<>();
+        communities.put(1, new HashSet<>(nodes.subList(0, CLIQUE)));
+        communities.put(2, new HashSet<>(nodes.subList(CLIQUE, 2 * CLIQUE)));
+        return communities;
+    }
+
+    @Test
+    public void twoCliquesJoinedByABridge() {
+        CommunityQuality quality = new CommunityQuality(two_cliques(), nodeRelations);
+        double m = CLIQUE * (CLIQUE - 1) + 1;
+
+        assertEquals((long) m, quality.getTotalEdges());
+        assertEquals((m - 1) / m - 0.5, quality.getModularity(), 1e-12);
+        assertEquals((m - 1) / m, quality.getCoverage(), 1e-12);
+        for (int community = 1; community <= 2; community++) {
+            assertEquals(CLIQUE * (CLIQUE - 1) / 2, quality.getInternalEdges(community));
+            assertEquals(1, quality.getExternalEdges(community));
+            assertEquals(1 / m, quality.conductance(community), 1e-12);
+        }
+    }
+
+    @Test
+    public void nodesWithoutCommunityCountOnTheirOwn() {
+        // Only the first clique is a community, the nodes of the second one are each a community of their own.
+        Map<Integer, Set<Node>> communities = two_cliques();
+        communities.remove(2);
+        CommunityQuality quality = new CommunityQuality(communities, nodeRelations);
+        double m = CLIQUE * (CLIQUE - 1) + 1;
+
+        double single_volumes = (CLIQUE - 1) * Math.pow(CLIQUE - 1, 2) + Math.pow(CLIQUE, 2);
+        double expected = (CLIQUE * (CLIQUE - 1) / 2) / m - Math.pow(m / (2 * m), 2) - single_volumes / (4 * m * m);
+        assertEquals(expected, quality.getModularity(), 1e-12);
+    }
+}
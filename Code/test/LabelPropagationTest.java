@@ -0,0 +1,93 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, junit, file and Collection data structures packages.
+ */
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Label Propagation: the modularity kept up to date while the labels move, and a run resumed from a checkpoint.
+ */
+public class LabelPropagationTest {
+
+    private static final int NODES = 2000;
+    private static final long SEED = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void quiet() {
+        Reporter.configure(Reporter.Verbosity.QUIET, null);
+    }
+
+    /**
+     * Checkpoint that is kept when the run ends, the same as a run that was stopped after its last save.
+     */
+    private static class StoppedCheckpoint extends Checkpoint {
+
+        StoppedCheckpoint(Path file) {
+            super(file, 1, 0);
+        }
+
+        @Override
+        public void delete() {
+        }
+    }
+
+    private static int[] values(IntArray labels) {
+        int[] values = new int[labels.size()];
+        for (int v = 0; v < values.length; v++)
+            values[v] = labels.get(v);
+        return values;
+    }
+
+    @Test
+    public void incrementalModularityMatchesTheWholeGraph() {
+        SyntheticGraphSource source = SyntheticGraphSource.plantedPartition(NODES, 8, 20, 0.2, SEED);
+        List<Node> nodes = source.nodes();
+        source.graphDB();
+        Map<Node, Map<Node, Relationship>> nodeRelations = GraphDB.getNodeRelations();
+
+        LabelPropagation lpa = new LabelPropagation(nodes, nodeRelations);
+        lpa.setCommunity_centrality(false);
+        lpa.find_labelPropagation_communities();
+        double incremental = lpa.getModularity();
+
+        // Computed again from the final labels, over every relation.
+        lpa.init_modularity();
+        assertEquals(lpa.getModularity(), incremental, 1e-9);
+        assertTrue(incremental > 0);
+    }
+
+    @Test
+    public void resumedRunEqualsUninterruptedRun() throws Exception {
+        CompactGraph graph = SyntheticGraphSource.plantedPartition(NODES, 8, 20, 0.3, SEED).compact();
+        int[] uninterrupted = values(LabelPropagation.propagate(graph, 20, SEED));
+
+        // Stopped after 2 iterations, then started again on the same checkpoint.
+        Path file = folder.getRoot().toPath().resolve("propagation.ckpt");
+        int[] stopped = values(LabelPropagation.propagate(graph, 2, SEED, new StoppedCheckpoint(file)));
+        assertTrue(Files.exists(file));
+        assertFalse(Arrays.equals(uninterrupted, stopped));
+        int[] resumed = values(LabelPropagation.propagate(graph, 20, SEED, new Checkpoint(file, 1, 0)));
+
+        assertArrayEquals(uninterrupted, resumed);
+        assertTrue(Files.notExists(file));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Libraries && Packages importing in the class to make the build and compile of the code
+ * be successful.
+ * Importing neo4j driver packages, junit and Collection data structures packages.
+ */
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Louvain on a planted partition graph, where the communities it should find are known.
+ */
+public class LouvainTest {
+
+    private static final int NODES = 400;
+    private static final int COMMUNITIES = 4;
+
+    @BeforeClass
+    public static void quiet() {
+        Reporter.configure(Reporter.Verbosity.QUIET, null);
+    }
+
+    @Test
+    public void recoversPlantedPartition() {
+        SyntheticGraphSource source = SyntheticGraphSource.plantedPartition(NODES, 16, COMMUNITIES, 0.02, 42);
+        List<Node> nodes = source.nodes();
+        source.graphDB();
+        Map<Node, Map<Node, Relationship>> nodeRelations = GraphDB.getNodeRelations();
+
+        Louvain louvain = new Louvain(nodes, nodeRelations);
+        louvain.find_louvain_communities();
+        Map<Integer, Set<Node>> results = louvain.getFinal_results();
+
+        // Every planted community is found as one community, with no node of another one.
+        assertEquals(COMMUNITIES, results.size());
+        Set<Integer> planted = new HashSet<>();
+        for (Set<Node> community : results.values()) {
+            assertEquals(NODES / COMMUNITIES, community.size());
+            Set<Integer> planted_of_community = new HashSet<>();
+            for (Node node : community)
+                planted_of_community.add(SyntheticGraphSource.plantedCommunity((int) node.id(), NODES, COMMUNITIES));
+            assertEquals(1, planted_of_community.size());
+            planted.addAll(planted_of_community);
+        }
+        assertEquals(COMMUNITIES, planted.size());
+
+        // The modularity Louvain reports is the one CommunityQuality measures on the same communities.
+        assertEquals(new CommunityQuality(results, nodeRelations).getModularity(), louvain.getModularity(), 1e-9);
+    }
+}